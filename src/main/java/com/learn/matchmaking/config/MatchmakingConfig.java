@@ -0,0 +1,104 @@
+package com.learn.matchmaking.config;
+
+import com.learn.matchmaking.matching.AggregationGroupingEngine;
+import com.learn.matchmaking.matching.BucketedGroupingEngine;
+import com.learn.matchmaking.matching.KdTreeGroupingEngine;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.ScoringEngine;
+import com.learn.matchmaking.matching.ScoringKernel;
+import com.learn.matchmaking.matching.ScoringKernels;
+import com.learn.matchmaking.matching.SortedGroupingEngine;
+import com.learn.matchmaking.service.PlayerUpdateBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableScheduling
+public class MatchmakingConfig {
+
+    @Bean
+    public ScoringKernel scoringKernel(@Value("${matchmaking.scoring.vector-enabled:true}") boolean vectorEnabled) {
+
+        return ScoringKernels.select(vectorEnabled);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool matchForkJoinPool(@Value("${matchmaking.parallel.parallelism:0}") int parallelism) {
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("match-scoring-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @Bean
+    public ScoringEngine scoringEngine(ScoringKernel scoringKernel, ForkJoinPool matchForkJoinPool,
+                                       @Value("${matchmaking.parallel.threshold:50000}") int parallelThreshold) {
+
+        return new ScoringEngine(scoringKernel, matchForkJoinPool, parallelThreshold);
+    }
+
+    @Bean
+    public SortedGroupingEngine sortedGroupingEngine(ScoringEngine scoringEngine) {
+
+        return new SortedGroupingEngine(scoringEngine);
+    }
+
+    @Bean
+    public BucketedGroupingEngine bucketedGroupingEngine(@Value("${matchmaking.bucket.base-window:1}") int baseWindow,
+                                                         @Value("${matchmaking.bucket.widen-interval:10000}") long widenInterval,
+                                                         @Value("${matchmaking.bucket.max-window:20}") int maxWindow) {
+
+        return new BucketedGroupingEngine(baseWindow, widenInterval, maxWindow, Clock.systemUTC());
+    }
+
+    @Bean
+    public KdTreeGroupingEngine kdTreeGroupingEngine(ScoringEngine scoringEngine) {
+
+        return new KdTreeGroupingEngine(scoringEngine);
+    }
+
+    @Bean
+    public AggregationGroupingEngine aggregationGroupingEngine(@Value("${matchmaking.aggregation.pool-limit:0}") int poolLimit) {
+
+        return new AggregationGroupingEngine(poolLimit);
+    }
+
+    @Bean
+    public PlayerReservations playerReservations(@Value("${matchmaking.reservation.ttl:30000}") long ttl) {
+
+        return new PlayerReservations(ttl, Clock.systemUTC());
+    }
+
+    @Bean
+    public PlayerUpdateBuffer playerUpdateBuffer(@Value("${matchmaking.write-behind.enabled:false}") boolean enabled,
+                                                 @Value("${matchmaking.write-behind.max-delay:500}") long maxDelay,
+                                                 @Value("${matchmaking.write-behind.max-pending:50000}") int maxPending) {
+
+        return new PlayerUpdateBuffer(enabled, maxDelay, maxPending, Clock.systemUTC());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService playerLookupExecutor(@Value("${matchmaking.lookup.parallelism:4}") int parallelism) {
+
+        AtomicInteger threads = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(Math.max(parallelism, 1), runnable -> {
+            Thread thread = new Thread(runnable, "player-lookup-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
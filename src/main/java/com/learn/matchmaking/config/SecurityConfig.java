@@ -3,6 +3,7 @@ package com.learn.matchmaking.config;
 import com.learn.matchmaking.filter.JWTFilter;
 import com.learn.matchmaking.service.MyUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -25,7 +26,7 @@ public class SecurityConfig {
     private static final String[] WHITE_LIST_URL = { "/api/v1/auth/**", "/v2/api-docs", "/v3/api-docs",
             "/v3/api-docs/**", "/swagger-resources", "/swagger-resources/**", "/configuration/ui",
             "/configuration/security", "/swagger-ui/**", "/webjars/**", "/swagger-ui.html", "/api/auth/**",
-            "/api/test/**", "auth/register", "auth/login" };
+            "/api/test/**", "auth/register", "auth/login", "auth/token", "auth/refresh" };
     private final JWTFilter jwtFilter;
 
     @Autowired
@@ -45,9 +46,25 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public PasswordEncoder passwordEncoder(@Value("${matchmaking.auth.bcrypt-strength:12}") int strength) {
 
-        return new BCryptPasswordEncoder(12);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Password checks against {@link MyUserDetailsService}; a hash stored below the configured
+     * strength is stored again at that strength on the user's next successful login.
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(MyUserDetailsService myUserDetailsService,
+                                                         PasswordEncoder passwordEncoder) {
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(myUserDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(myUserDetailsService);
+
+        return provider;
     }
 
     @Bean
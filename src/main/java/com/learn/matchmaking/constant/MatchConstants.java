@@ -5,6 +5,15 @@ public final class MatchConstants {
     public static final String MATCH_SUCCESSFUL_MESSAGE = "Matchmaking was Successful";
     public static final String MATCH_PLAYER_IDS_MANDATORY_MESSAGE = "Player Id's are mandatory";
     public static final String MATCH_MAKING_CRITERIA_MESSAGE = "The number of active players doesn't match the criteria for matchmaking";
+    public static final String MATCH_ENGINE_UNAVAILABLE_MESSAGE = "Match engine %s is not available";
+    public static final String MATCH_ENGINE_POOL_ONLY_MESSAGE = "Match engine %s only serves pool matches";
+    public static final String MATCH_REQUIRED_ATTRIBUTES_MESSAGE = "Every required attribute needs an attribute name and at least one of anyOf, min or max";
+
+    public static final String PROFILE_REGISTRATION_SUCCESSFUL_MESSAGE = "Match profile registration successful";
+    public static final String PROFILE_INVALID_MESSAGE = "Match profile is invalid: name, target attributes, a weight for every target attribute and a positive group size are required";
+    public static final String PROFILE_NOT_FOUND_MESSAGE = "Match profile %s not found";
+    public static final String PROFILE_DELETION_SUCCESSFUL_MESSAGE = "Match profile deletion successful";
+    public static final String SCHEDULED_RESULTS_MESSAGE = "Scheduled matches for profile %s";
 
     private MatchConstants() {
     }
@@ -0,0 +1,29 @@
+package com.learn.matchmaking.constant;
+
+public final class MetricConstants {
+
+    public static final String POOL_REQUESTS = "match.pool.requests";
+    public static final String POOL_COMPUTATIONS = "match.pool.computations";
+    public static final String POOL_COALESCED = "match.pool.coalesced";
+    public static final String FILTER_INDEX_PLAYERS = "match.filter-index.players";
+    public static final String WRITE_BEHIND_DEPTH = "player.write-behind.depth";
+    public static final String WRITE_BEHIND_LAG = "player.write-behind.lag-ms";
+    public static final String WRITE_BEHIND_MERGED = "player.write-behind.merged";
+    public static final String WRITE_BEHIND_FLUSHES = "player.write-behind.flushes";
+    public static final String WRITE_BEHIND_DROPPED = "player.write-behind.dropped";
+    public static final String WRITE_BEHIND_REJECTED = "player.write-behind.rejected";
+    public static final String USER_CACHE_SIZE = "auth.user-cache.size";
+    public static final String USER_CACHE_HITS = "auth.user-cache.hits";
+    public static final String USER_CACHE_MISSES = "auth.user-cache.misses";
+    public static final String USER_CACHE_EVICTIONS = "auth.user-cache.evictions";
+    public static final String PASSWORD_WORK_QUEUE_DEPTH = "auth.password-work.queue-depth";
+    public static final String PASSWORD_WORK_ACTIVE = "auth.password-work.active";
+    public static final String PASSWORD_WORK_TASKS = "auth.password-work.tasks";
+    public static final String PASSWORD_WORK_WAIT = "auth.password-work.wait-ms";
+    public static final String PASSWORD_WORK_MAX_WAIT = "auth.password-work.max-wait-ms";
+    public static final String PASSWORD_WORK_REJECTED = "auth.password-work.rejected";
+    public static final String PASSWORD_REHASHES = "auth.password-rehashes";
+
+    private MetricConstants() {
+    }
+}
@@ -7,8 +7,14 @@ public final class PlayerConstants {
     public static final String UPDATE_SUCCESS_MESSAGE = "Player update successful";
     public static final String UPDATE_FAILURE_MESSAGE = "Update failed for the following players as they were not found: ";
     public static final String UPDATE_FAILURE_MESSAGE2 = "Update failed for %s players, as player id's were not found in the request";
+    public static final String UPDATE_REJECTED_MESSAGE = "Update failed for the following players as their new name is already taken or the update is invalid: ";
+    public static final String INVALID_ATTRIBUTE_KEYS_MESSAGE = "Update failed as attribute names must not be empty, contain '.' or start with '$': ";
     public static final String DELETE_SUCCESSFUL_MESSAGE = "Player deletion successful";
     public static final String DELETE_FAILURE_MESSAGE = "Player deletion failed for the following players: ";
+    public static final String INVALID_CURSOR_MESSAGE = "Invalid page cursor: ";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int STREAM_BATCH_SIZE = 500;
 
     private PlayerConstants() {
     }
@@ -5,4 +5,6 @@ public class UserConstants {
     public static final String USER_REGISTRATION_SUCCESSFUL_MESSAGE = "User registration successful";
     public static final String USER_REGISTRATION_FAILED_MESSAGE = "User registration failed: as user with %s username already exists";
     public static final String USER_LOGIN_FAILED_MESSAGE = "Invalid username or password";
+    public static final String AUTHENTICATION_BUSY_MESSAGE = "Too many authentication requests, retry later";
+    public static final String REFRESH_TOKEN_INVALID_MESSAGE = "Invalid, expired or already used refresh token";
 }
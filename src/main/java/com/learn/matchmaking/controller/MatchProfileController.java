@@ -0,0 +1,181 @@
+package com.learn.matchmaking.controller;
+
+import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.dto.MatchProfile;
+import com.learn.matchmaking.dto.MatchResponse;
+import com.learn.matchmaking.service.MatchProfileService;
+import com.learn.matchmaking.service.MatchSchedulerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "Match Profiles")
+@RestController
+@RequestMapping("match/profiles")
+public class MatchProfileController {
+
+    private final MatchProfileService matchProfileService;
+    private final MatchSchedulerService matchSchedulerService;
+
+    @Autowired
+    public MatchProfileController(MatchProfileService matchProfileService,
+                                  MatchSchedulerService matchSchedulerService) {
+
+        this.matchProfileService = matchProfileService;
+        this.matchSchedulerService = matchSchedulerService;
+    }
+
+    @Operation(summary = "Register (or replace) a named match profile, its pool is kept ranked as players change")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "201", description = "Registration of the profile is successful",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Registration failed: profile is invalid",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @PostMapping
+    public ResponseEntity<String> registerProfile(@RequestBody MatchProfile profile) {
+
+        String message = matchProfileService.registerProfile(profile);
+
+        if(message.equals(MatchConstants.PROFILE_REGISTRATION_SUCCESSFUL_MESSAGE)) {
+
+            return new ResponseEntity<>(message, HttpStatus.CREATED);
+        } else {
+
+            return ResponseEntity.badRequest().body(message);
+        }
+    }
+
+    @Operation(summary = "Get all registered match profiles")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "List of registered profiles",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = MatchProfile.class))
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @GetMapping
+    public ResponseEntity<List<MatchProfile>> getProfiles() {
+
+        return ResponseEntity.ok(matchProfileService.getProfiles());
+    }
+
+    @Operation(summary = "Delete a match profile")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Deletion of the profile is successful",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "Deletion failed: profile not found",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @DeleteMapping("{name}")
+    public ResponseEntity<String> deleteProfile(@PathVariable String name) {
+
+        String message = matchProfileService.deleteProfile(name);
+
+        if(message.equals(MatchConstants.PROFILE_DELETION_SUCCESSFUL_MESSAGE)) {
+
+            return ResponseEntity.ok(message);
+        } else {
+
+            return ResponseEntity.badRequest().body(message);
+        }
+    }
+
+    @Operation(summary = "Matchmaking players from the ranked pool of a registered profile")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Matchmaking Successful",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = MatchResponse.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Matchmaking Failed: profile not found or not enough active players",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @PostMapping("{name}/pool")
+    public ResponseEntity<MatchResponse> matchGroupFromProfile(@PathVariable String name) {
+
+        MatchResponse response = matchProfileService.getGroupsFromProfile(name);
+
+        if(!response.getGroups().isEmpty()) {
+
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } else {
+
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @Operation(summary = "Fetch groups formed by the background matchmaking loop for a profile, each group is returned once")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Groups formed since the last fetch",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = MatchResponse.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "204", description = "No groups are waiting",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @GetMapping("{name}/results")
+    public ResponseEntity<MatchResponse> getScheduledResults(@PathVariable String name,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+
+        MatchResponse response = matchSchedulerService.takeResults(name, limit);
+
+        if(!response.getGroups().isEmpty()) {
+
+            return ResponseEntity.ok(response);
+        } else {
+
+            return ResponseEntity.noContent().build();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.learn.matchmaking.controller;
+
+import com.learn.matchmaking.service.MetricsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Tag(name = "Metrics")
+@RestController
+@RequestMapping("metrics")
+public class MetricsController {
+
+    private final MetricsService metricsService;
+
+    @Autowired
+    public MetricsController(MetricsService metricsService) {
+
+        this.metricsService = metricsService;
+    }
+
+    @Operation(summary = "Current values of the matchmaking counters and gauges")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Metrics"),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @GetMapping
+    public ResponseEntity<Map<String, Number>> getMetrics() {
+
+        return new ResponseEntity<>(metricsService.snapshot(), HttpStatus.OK);
+    }
+}
@@ -1,8 +1,10 @@
 package com.learn.matchmaking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learn.matchmaking.constant.PlayerConstants;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
 import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.dto.PlayerPage;
 import com.learn.matchmaking.exception.PlayerNotFoundException;
 import com.learn.matchmaking.service.PlayerService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,11 +14,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Tag(name = "Player Management")
@@ -25,11 +32,13 @@ import java.util.List;
 public class PlayerController {
 
     private final PlayerService playerService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PlayerController(PlayerService playerService) {
+    public PlayerController(PlayerService playerService, ObjectMapper objectMapper) {
 
         this.playerService = playerService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Get all players")
@@ -54,15 +63,85 @@ public class PlayerController {
     @GetMapping("all")
     public ResponseEntity<List<PlayerBasicDTO>> getPlayers() {
 
-        if(!playerService.getPlayers().isEmpty()) {
+        List<PlayerBasicDTO> players = playerService.getPlayers();
 
-            return ResponseEntity.ok(playerService.getPlayers());
+        if(!players.isEmpty()) {
+
+            return ResponseEntity.ok(players);
         } else {
 
             return ResponseEntity.noContent().build();
         }
     }
 
+    @Operation(summary = "Get a page of players ordered by id, starting after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Page of players and the cursor of the next page (null on the last page)",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PlayerPage.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "400", description = "The cursor is not a player id",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PlayerPage.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @GetMapping
+    public ResponseEntity<PlayerPage> getPlayerPage(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = "" + PlayerConstants.DEFAULT_PAGE_SIZE) int limit) {
+
+        PlayerPage page = playerService.getPlayers(after, limit);
+
+        if(page.getMessage() == null) {
+
+            return ResponseEntity.ok(page);
+        } else {
+
+            return ResponseEntity.badRequest().body(page);
+        }
+    }
+
+    @Operation(summary = "Stream all players as newline-delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "One player per line",
+                    content = {@Content(
+                            mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = PlayerBasicDTO.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "No Authorization",
+                    content = {@Content}
+            )
+    })
+    @GetMapping(value = "stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamPlayers(HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        // writes block while the client is behind, which stops the cursor from fetching ahead
+        playerService.forEachPlayer(player -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(player));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
     @Operation(summary = "Get player by name (player name is unique)")
     @ApiResponses(value = {
             @ApiResponse(
@@ -1,7 +1,10 @@
 package com.learn.matchmaking.controller;
 
 import com.learn.matchmaking.constant.UserConstants;
+import com.learn.matchmaking.dto.RefreshTokenRequest;
+import com.learn.matchmaking.dto.TokenResponse;
 import com.learn.matchmaking.dto.UsersDTO;
+import com.learn.matchmaking.exception.PasswordWorkRejectedException;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.service.UsersService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -37,12 +41,24 @@ public class UserController {
             @ApiResponse(
                     responseCode = "403", description = "Registration Failed",
                     content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "429", description = "Too many authentication requests",
+                    content = {@Content}
             )
     })
     @PostMapping("/register")
     public ResponseEntity<String> registerUser(@RequestBody UsersDTO user) {
 
-        String message = usersService.registerUser(user);
+        String message;
+        try {
+
+            message = usersService.registerUser(user);
+
+        } catch (PasswordWorkRejectedException e) {
+
+            return new ResponseEntity<>(e.getMessage(), retryAfter(e), HttpStatus.TOO_MANY_REQUESTS);
+        }
 
         if(message.equals(UserConstants.USER_REGISTRATION_SUCCESSFUL_MESSAGE)){
 
@@ -63,6 +79,10 @@ public class UserController {
             @ApiResponse(
                     responseCode = "403", description = "Authentication Failed",
                     content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "429", description = "Too many authentication requests",
+                    content = {@Content}
             )
     })
     @PostMapping("/login")
@@ -72,9 +92,86 @@ public class UserController {
 
             return new ResponseEntity<>(usersService.verifyUser(user), HttpStatus.OK);
 
+        } catch (PasswordWorkRejectedException e) {
+
+            return new ResponseEntity<>(e.getMessage(), retryAfter(e), HttpStatus.TOO_MANY_REQUESTS);
+
         } catch (Exception e ) {
 
             return new ResponseEntity<>(UserConstants.USER_LOGIN_FAILED_MESSAGE, HttpStatus.FORBIDDEN);
         }
     }
+
+    @Operation(summary = "Get a JWT access token and a refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Authentication Successful",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TokenResponse.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "403", description = "Authentication Failed",
+                    content = {@Content}
+            ),
+            @ApiResponse(
+                    responseCode = "429", description = "Too many authentication requests",
+                    content = {@Content}
+            )
+    })
+    @PostMapping("/token")
+    public ResponseEntity<TokenResponse> issueTokens(@RequestBody UsersDTO user) {
+
+        try {
+
+            return new ResponseEntity<>(usersService.issueTokens(user), HttpStatus.OK);
+
+        } catch (PasswordWorkRejectedException e) {
+
+            return new ResponseEntity<>(new TokenResponse(null, null, e.getMessage()), retryAfter(e),
+                    HttpStatus.TOO_MANY_REQUESTS);
+
+        } catch (Exception e ) {
+
+            return new ResponseEntity<>(new TokenResponse(null, null, UserConstants.USER_LOGIN_FAILED_MESSAGE),
+                    HttpStatus.FORBIDDEN);
+        }
+    }
+
+    @Operation(summary = "Exchange a refresh token for a new access token and refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", description = "Refresh Successful",
+                    content = {@Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TokenResponse.class)
+                    )}
+            ),
+            @ApiResponse(
+                    responseCode = "401", description = "Invalid, expired or already used refresh token",
+                    content = {@Content}
+            )
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponse> refreshTokens(@RequestBody RefreshTokenRequest request) {
+
+        TokenResponse response = usersService.refreshTokens(request.getRefreshToken());
+
+        if (response.getMessage() == null) {
+
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } else {
+
+            return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    private static HttpHeaders retryAfter(PasswordWorkRejectedException e) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+
+        return headers;
+    }
 }
@@ -0,0 +1,22 @@
+package com.learn.matchmaking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A hard requirement on one attribute: the value must equal one of {@code anyOf}, and a
+ * numeric value must lie within {@code [min, max]}. Either part may be left out.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttributeFilter {
+
+    private String attribute; // Attribute the filter applies to
+    private List<Object> anyOf; // Optional, accepted values (equality, OR between values)
+    private Double min; // Optional, inclusive lower bound of a numeric value
+    private Double max; // Optional, inclusive upper bound of a numeric value
+}
@@ -0,0 +1,16 @@
+package com.learn.matchmaking.dto;
+
+/**
+ * How the groups of a {@link MatchRequest} are formed. {@code SORTED} ranks the whole pool by
+ * score; {@code BUCKETED} pulls neighbours from a histogram over one numeric attribute;
+ * {@code KD_TREE} groups nearest neighbours over all numeric target attributes;
+ * {@code AGGREGATION} scores and ranks the pool inside MongoDB and only groups the ranking
+ * (pool matches only).
+ */
+public enum MatchEngine {
+
+    SORTED,
+    BUCKETED,
+    KD_TREE,
+    AGGREGATION
+}
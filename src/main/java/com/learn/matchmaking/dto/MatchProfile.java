@@ -0,0 +1,24 @@
+package com.learn.matchmaking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MatchProfile {
+
+    private String name; // Unique name the game servers match against
+    private Map<String, Object> targetAttributes; // Attributes for matching
+    private Map<String, Double> attributeWeights; // Weights for each attribute
+    private int groupSize; // Number of players per group
+    private boolean matchTypeFair; //To be Matched fair or not
+
+    public MatchRequest toMatchRequest() {
+
+        return new MatchRequest(null, targetAttributes, attributeWeights, groupSize, matchTypeFair, null, null, null, null);
+    }
+}
@@ -17,5 +17,9 @@ public class MatchRequest {
     private Map<String, Double> attributeWeights; // Weights for each attribute
     private int groupSize; // Number of players per group
     private boolean matchTypeFair; //To be Matched fair or not
+    private MatchEngine engine; // Optional, defaults to SORTED
+    private String bucketAttribute; // Optional, numeric target attribute the BUCKETED engine indexes
+    private Double bucketWidth; // Optional, width of one BUCKETED histogram bucket
+    private List<AttributeFilter> requiredAttributes; // Optional, every filter must hold before a player is scored
 
 }
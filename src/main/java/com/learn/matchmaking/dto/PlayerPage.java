@@ -0,0 +1,17 @@
+package com.learn.matchmaking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerPage {
+
+    private List<PlayerBasicDTO> players;
+    private String nextCursor;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package com.learn.matchmaking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenResponse {
+
+    private String accessToken; // JWT for the Authorization header, valid for one hour
+    private String refreshToken; // Opaque, single use, exchanged at /auth/refresh for a new pair
+    private String message; // Set instead of the tokens when they could not be issued
+}
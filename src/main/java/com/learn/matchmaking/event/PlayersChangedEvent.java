@@ -0,0 +1,23 @@
+package com.learn.matchmaking.event;
+
+import com.learn.matchmaking.model.Player;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the player service after players were written or deleted, carrying the
+ * players as they were saved and the ids that were removed.
+ */
+public record PlayersChangedEvent(Collection<Player> savedPlayers, Collection<String> deletedPlayerIds) {
+
+    public static PlayersChangedEvent saved(Collection<Player> players) {
+
+        return new PlayersChangedEvent(players, List.of());
+    }
+
+    public static PlayersChangedEvent deleted(Collection<String> playerIds) {
+
+        return new PlayersChangedEvent(List.of(), playerIds);
+    }
+}
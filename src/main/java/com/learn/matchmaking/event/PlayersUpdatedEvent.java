@@ -0,0 +1,43 @@
+package com.learn.matchmaking.event;
+
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.model.Player;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Published by the player service after partial updates were written. The updates say which
+ * fields changed; the players as saved are only read from the database when a listener asks
+ * for them, and then once for all listeners.
+ */
+public final class PlayersUpdatedEvent {
+
+    private final List<PlayerDTO> updates;
+    private final Supplier<List<Player>> loader;
+    private List<Player> savedPlayers;
+
+    public PlayersUpdatedEvent(List<PlayerDTO> updates, Supplier<List<Player>> loader) {
+
+        this.updates = updates;
+        this.loader = loader;
+    }
+
+    public List<PlayerDTO> updates() {
+
+        return updates;
+    }
+
+    public synchronized List<Player> savedPlayers() {
+
+        if (savedPlayers == null) {
+            savedPlayers = loader.get();
+        }
+        return savedPlayers;
+    }
+
+    public PlayersChangedEvent asChangedEvent() {
+
+        return PlayersChangedEvent.saved(savedPlayers());
+    }
+}
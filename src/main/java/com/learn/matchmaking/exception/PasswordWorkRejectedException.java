@@ -0,0 +1,15 @@
+package com.learn.matchmaking.exception;
+
+public class PasswordWorkRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordWorkRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
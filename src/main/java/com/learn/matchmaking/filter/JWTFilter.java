@@ -2,52 +2,78 @@ package com.learn.matchmaking.filter;
 
 import com.learn.matchmaking.service.JWTService;
 import com.learn.matchmaking.service.MyUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTService jwtService;
     private final MyUserDetailsService myUserDetailsService;
+    private final boolean claimsAuthentication;
+    private final List<String> userLookupPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
+    /**
+     * @param claimsAuthentication authenticate tokens that carry their authorities from the
+     *                             verified claims alone, without loading the user
+     * @param userLookupPaths      path patterns that still load the stored user, past the user
+     *                             cache, for every request, so a changed or deleted user is
+     *                             refused at once
+     */
     @Autowired
-    public JWTFilter(JWTService jwtService, MyUserDetailsService myUserDetailsService) {
+    public JWTFilter(JWTService jwtService, MyUserDetailsService myUserDetailsService,
+                     @Value("${matchmaking.auth.claims-authentication:true}") boolean claimsAuthentication,
+                     @Value("${matchmaking.auth.user-lookup-paths:/players/delete/**}") List<String> userLookupPaths) {
 
         this.jwtService = jwtService;
         this.myUserDetailsService = myUserDetailsService;
+        this.claimsAuthentication = claimsAuthentication;
+        this.userLookupPaths = userLookupPaths;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         String authorization = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        Claims claims = null;
 
         if (authorization != null && authorization.startsWith("Bearer ")) {
 
-            token = authorization.substring(7);
-            username = jwtService.extractUsername(token);
+            // verified once per token and then served from the verified-token cache
+            claims = jwtService.verify(authorization.substring(7)).orElse(null);
         }
 
-        if(username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if(claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = myUserDetailsService.loadUserByUsername(username);
+            UserDetails userDetails;
+            if (requiresUserLookup(request)) {
+                // a cached user could still carry the password or roles from before a change
+                userDetails = myUserDetailsService.loadUserByUsernameUncached(claims.getSubject());
+            } else {
+                userDetails = claimsAuthentication ? jwtService.principalFrom(claims).orElse(null) : null;
+                if (userDetails == null) {
+                    userDetails = myUserDetailsService.loadUserByUsername(claims.getSubject());
+                }
+            }
 
-            if(jwtService.validateToken(token, userDetails)) {
+            if(jwtService.validateToken(claims, userDetails)) {
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -61,4 +87,10 @@ public class JWTFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private boolean requiresUserLookup(HttpServletRequest request) {
+
+        String path = request.getServletPath();
+        return path != null && userLookupPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
 }
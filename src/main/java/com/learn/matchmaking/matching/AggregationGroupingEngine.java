@@ -0,0 +1,45 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.util.List;
+
+/**
+ * Groups a pool that the database has already scored and ordered, best first, so the
+ * application tier never ranks it. {@code MatchService} loads the pool for this engine with
+ * the ranking aggregation, cut to at most {@link #poolLimit()} players.
+ */
+public final class AggregationGroupingEngine implements GroupingEngine {
+
+    private final int poolLimit;
+
+    /**
+     * @param poolLimit the most players the aggregation returns, best first; {@code 0} or less
+     *                  returns the whole pool
+     */
+    public AggregationGroupingEngine(int poolLimit) {
+
+        this.poolLimit = Math.max(poolLimit, 0);
+    }
+
+    @Override
+    public MatchEngine engine() {
+
+        return MatchEngine.AGGREGATION;
+    }
+
+    public int poolLimit() {
+
+        return poolLimit;
+    }
+
+    @Override
+    public List<List<PlayerBasicDTO>> formGroups(ScoringPlan scoringPlan, PlayerColumns columns,
+                                                 MatchRequest matchRequest) {
+
+        return GroupFormation.form(columns.size(), matchRequest.getGroupSize(), matchRequest.isMatchTypeFair(),
+                columns::player);
+    }
+}
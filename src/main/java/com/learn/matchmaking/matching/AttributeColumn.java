@@ -0,0 +1,105 @@
+package com.learn.matchmaking.matching;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One attribute of the player pool stored column-wise. Numeric values live in a
+ * {@code double[]}, every other value is dictionary-encoded into an {@code int[]}; each part
+ * has its own presence bitmap and is only allocated once a row needs it.
+ */
+public final class AttributeColumn {
+
+    public static final int ABSENT = -1;
+
+    private final int rows;
+    private double[] numbers;
+    private long[] numberPresence;
+    private int[] codes;
+    private long[] codePresence;
+    private final Map<Object, Integer> dictionary = new HashMap<>();
+    private final List<Object> values = new ArrayList<>();
+
+    AttributeColumn(int rows) {
+
+        this.rows = rows;
+    }
+
+    void set(int row, Object value) {
+
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number number) {
+            if (numbers == null) {
+                numbers = new double[rows];
+                numberPresence = Bitmaps.create(rows);
+            }
+            numbers[row] = number.doubleValue();
+            Bitmaps.set(numberPresence, row);
+        } else {
+            if (codes == null) {
+                codes = new int[rows];
+                codePresence = Bitmaps.create(rows);
+            }
+            codes[row] = dictionary.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+            Bitmaps.set(codePresence, row);
+        }
+    }
+
+    public int rows() {
+
+        return rows;
+    }
+
+    public boolean hasNumbers() {
+
+        return numbers != null;
+    }
+
+    public boolean hasCodes() {
+
+        return codes != null;
+    }
+
+    public double[] numbers() {
+
+        return numbers;
+    }
+
+    public long[] numberPresence() {
+
+        return numberPresence;
+    }
+
+    public int[] codes() {
+
+        return codes;
+    }
+
+    public long[] codePresence() {
+
+        return codePresence;
+    }
+
+    public int code(Object value) {
+
+        Integer code = value == null ? null : dictionary.get(value);
+        return code == null ? ABSENT : code;
+    }
+
+    public Object value(int code) {
+
+        return values.get(code);
+    }
+
+    public int cardinality() {
+
+        return values.size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.dto.AttributeFilter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the {@code requiredAttributes} of a match request: filters are combined with AND,
+ * the values of one filter with OR. Numbers are compared by value, so {@code 5} and
+ * {@code 5.0} are equal.
+ */
+public final class AttributeFilters {
+
+    private AttributeFilters() {
+    }
+
+    public static boolean isEmpty(List<AttributeFilter> filters) {
+
+        return filters == null || filters.isEmpty();
+    }
+
+    /**
+     * @return {@code null} when every filter is usable, otherwise the message for the caller
+     */
+    public static String validate(List<AttributeFilter> filters) {
+
+        if (isEmpty(filters)) {
+            return null;
+        }
+        for (AttributeFilter filter : filters) {
+            if (filter == null || filter.getAttribute() == null
+                    || ((filter.getAnyOf() == null || filter.getAnyOf().isEmpty())
+                    && filter.getMin() == null && filter.getMax() == null)) {
+                return MatchConstants.MATCH_REQUIRED_ATTRIBUTES_MESSAGE;
+            }
+        }
+        return null;
+    }
+
+    public static boolean matches(List<AttributeFilter> filters, Map<String, Object> attributes) {
+
+        if (isEmpty(filters)) {
+            return true;
+        }
+        for (AttributeFilter filter : filters) {
+            if (!matches(filter, attributes == null ? null : attributes.get(filter.getAttribute()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean matches(AttributeFilter filter, Object value) {
+
+        if (value == null) {
+            return false;
+        }
+        if (filter.getAnyOf() != null && !filter.getAnyOf().isEmpty()
+                && filter.getAnyOf().stream().noneMatch(accepted -> sameValue(accepted, value))) {
+            return false;
+        }
+        if (filter.getMin() != null || filter.getMax() != null) {
+            return value instanceof Number number && inRange(filter, number.doubleValue());
+        }
+        return true;
+    }
+
+    static boolean inRange(AttributeFilter filter, double value) {
+
+        return (filter.getMin() == null || value >= filter.getMin())
+                && (filter.getMax() == null || value <= filter.getMax());
+    }
+
+    static boolean sameValue(Object accepted, Object value) {
+
+        if (accepted instanceof Number a && value instanceof Number b) {
+            return a.doubleValue() == b.doubleValue();
+        }
+        return accepted != null && accepted.equals(value);
+    }
+}
@@ -0,0 +1,22 @@
+package com.learn.matchmaking.matching;
+
+final class Bitmaps {
+
+    private Bitmaps() {
+    }
+
+    static long[] create(int bits) {
+
+        return new long[(bits + 63) >>> 6];
+    }
+
+    static void set(long[] words, int bit) {
+
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    static boolean isSet(long[] words, int bit) {
+
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+}
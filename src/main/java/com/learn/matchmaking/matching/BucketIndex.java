@@ -0,0 +1,142 @@
+package com.learn.matchmaking.matching;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Fixed-width histogram over one numeric attribute. Rows are kept in per-bucket arrays with
+ * swap-remove, so insert and remove are O(1); a sorted set of the occupied bucket keys answers
+ * nearest-bucket lookups in O(log b) for b occupied buckets.
+ */
+public final class BucketIndex {
+
+    private static final int NOT_INDEXED = -1;
+
+    private final double width;
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    private final TreeSet<Long> occupied = new TreeSet<>();
+    private final long[] bucketOf;
+    private final int[] slotOf;
+    private int size;
+
+    public BucketIndex(int rows, double width) {
+
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("Bucket width must be a positive number");
+        }
+        this.width = width;
+        this.bucketOf = new long[rows];
+        this.slotOf = new int[rows];
+        Arrays.fill(slotOf, NOT_INDEXED);
+    }
+
+    public long bucketKey(double value) {
+
+        return (long) Math.floor(value / width);
+    }
+
+    public void insert(int row, double value) {
+
+        if (contains(row)) {
+            remove(row);
+        }
+        long key = bucketKey(value);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets.put(key, bucket);
+            occupied.add(key);
+        }
+        bucketOf[row] = key;
+        slotOf[row] = bucket.add(row);
+        size++;
+    }
+
+    public boolean contains(int row) {
+
+        return slotOf[row] != NOT_INDEXED;
+    }
+
+    public void remove(int row) {
+
+        if (!contains(row)) {
+            return;
+        }
+        long key = bucketOf[row];
+        Bucket bucket = buckets.get(key);
+        int moved = bucket.removeAt(slotOf[row]);
+        if (moved != NOT_INDEXED) {
+            slotOf[moved] = slotOf[row];
+        }
+        slotOf[row] = NOT_INDEXED;
+        if (bucket.size == 0) {
+            buckets.remove(key);
+            occupied.remove(key);
+        }
+        size--;
+    }
+
+    /**
+     * Removes and returns a row of the given occupied bucket.
+     */
+    public int poll(long key) {
+
+        Bucket bucket = buckets.get(key);
+        int row = bucket.rows[bucket.size - 1];
+        remove(row);
+        return row;
+    }
+
+    /**
+     * The occupied bucket nearest to {@code key} within {@code reach} buckets, preferring the
+     * lower one on a tie, or {@code null} when there is none.
+     */
+    public Long nearest(long key, long reach) {
+
+        Long below = occupied.floor(key);
+        Long above = occupied.higher(key);
+        long belowDistance = below == null ? Long.MAX_VALUE : key - below;
+        long aboveDistance = above == null ? Long.MAX_VALUE : above - key;
+
+        if (belowDistance <= aboveDistance) {
+            return belowDistance <= reach ? below : null;
+        }
+        return aboveDistance <= reach ? above : null;
+    }
+
+    public int size() {
+
+        return size;
+    }
+
+    private static final class Bucket {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        private int add(int row) {
+
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size] = row;
+            return size++;
+        }
+
+        /**
+         * Removes the row at {@code slot} by moving the last row into it; returns the moved
+         * row, or {@link #NOT_INDEXED} when the removed row was the last one.
+         */
+        private int removeAt(int slot) {
+
+            size--;
+            if (slot == size) {
+                return NOT_INDEXED;
+            }
+            rows[slot] = rows[size];
+            return rows[slot];
+        }
+    }
+}
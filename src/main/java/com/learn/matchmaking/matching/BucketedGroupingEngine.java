@@ -0,0 +1,157 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forms groups from a {@link BucketIndex} over one numeric attribute instead of ranking the
+ * whole pool. Players are seeded longest-waiting first; each seed pulls its neighbours from the
+ * nearest occupied buckets, and the number of buckets it may reach grows with its wait time.
+ * Only full groups are returned, everyone else keeps waiting for the next request. The index
+ * is built per request, in one pass over the loaded rows, because the attribute and bucket
+ * width are chosen by the request and the rows are positions in the pool it loaded.
+ */
+public final class BucketedGroupingEngine implements GroupingEngine {
+
+    static final double DEFAULT_WIDTH_FRACTION = 0.05;
+
+    private final int baseWindow;
+    private final long widenIntervalMillis;
+    private final int maxWindow;
+    private final Clock clock;
+
+    /**
+     * @param baseWindow          buckets a player that has just started searching may reach
+     * @param widenIntervalMillis wait time after which the reach grows by one bucket
+     * @param maxWindow           upper bound of the reach
+     */
+    public BucketedGroupingEngine(int baseWindow, long widenIntervalMillis, int maxWindow, Clock clock) {
+
+        this.baseWindow = Math.max(baseWindow, 0);
+        this.widenIntervalMillis = Math.max(widenIntervalMillis, 1);
+        this.maxWindow = Math.max(maxWindow, this.baseWindow);
+        this.clock = clock;
+    }
+
+    @Override
+    public MatchEngine engine() {
+
+        return MatchEngine.BUCKETED;
+    }
+
+    @Override
+    public List<List<PlayerBasicDTO>> formGroups(ScoringPlan scoringPlan, PlayerColumns columns,
+                                                 MatchRequest matchRequest) {
+
+        String attribute = matchRequest.getBucketAttribute() != null
+                ? matchRequest.getBucketAttribute()
+                : scoringPlan.heaviestNumericKey();
+        Double target = attribute == null ? null : scoringPlan.numericTarget(attribute);
+        if (target == null) {
+            throw new IllegalArgumentException("Bucketed matchmaking needs a numeric target attribute to bucket by");
+        }
+
+        List<List<PlayerBasicDTO>> matchGroups = new ArrayList<>();
+        int groupSize = matchRequest.getGroupSize();
+        AttributeColumn column = columns.column(attribute);
+        if (groupSize < 1 || column == null || !column.hasNumbers()) {
+            return matchGroups;
+        }
+
+        double[] values = column.numbers();
+        long[] presence = column.numberPresence();
+        BucketIndex index = new BucketIndex(columns.size(), bucketWidth(matchRequest.getBucketWidth(), target));
+        for (int row = 0; row < columns.size(); row++) {
+            if (Bitmaps.isSet(presence, row)) {
+                index.insert(row, values[row]);
+            }
+        }
+
+        int[] reach = reach(columns);
+        int[] group = new int[groupSize];
+        for (int seed : widestReachFirst(reach)) {
+
+            if (index.size() < groupSize) {
+                break;
+            }
+            if (!index.contains(seed)) {
+                continue;
+            }
+            index.remove(seed);
+            group[0] = seed;
+            int filled = 1;
+
+            long centre = index.bucketKey(values[seed]);
+            while (filled < groupSize) {
+                Long nearest = index.nearest(centre, reach[seed]);
+                if (nearest == null) {
+                    break;
+                }
+                group[filled++] = index.poll(nearest);
+            }
+
+            if (filled == groupSize) {
+                List<PlayerBasicDTO> matchGroup = new ArrayList<>(groupSize);
+                for (int row : group) {
+                    matchGroup.add(columns.player(row));
+                }
+                matchGroups.add(matchGroup);
+            } else {
+                for (int i = 0; i < filled; i++) {
+                    index.insert(group[i], values[group[i]]);
+                }
+            }
+        }
+
+        return matchGroups;
+    }
+
+    static double bucketWidth(Double requestedWidth, double target) {
+
+        if (requestedWidth != null && requestedWidth > 0 && !requestedWidth.isInfinite()) {
+            return requestedWidth;
+        }
+        return Math.max(Math.abs(target) * DEFAULT_WIDTH_FRACTION, 1.0);
+    }
+
+    private int[] reach(PlayerColumns columns) {
+
+        long now = clock.millis();
+        int[] reach = new int[columns.size()];
+        for (int row = 0; row < reach.length; row++) {
+
+            Instant since = columns.searchingSince(row);
+            long waited = since == null ? 0 : Math.max(now - since.toEpochMilli(), 0);
+            reach[row] = (int) Math.min(baseWindow + waited / widenIntervalMillis, maxWindow);
+        }
+        return reach;
+    }
+
+    /**
+     * Counting sort of the rows by reach, widest first. Reach only takes
+     * {@code maxWindow - baseWindow + 1} values, so the seed order costs O(n) rather than a
+     * comparison sort; rows with the same reach keep their load order.
+     */
+    private int[] widestReachFirst(int[] reach) {
+
+        int[] starts = new int[maxWindow + 2];
+        for (int r : reach) {
+            starts[maxWindow - r + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+
+        int[] order = new int[reach.length];
+        for (int row = 0; row < reach.length; row++) {
+            order[starts[maxWindow - reach[row]]++] = row;
+        }
+        return order;
+    }
+}
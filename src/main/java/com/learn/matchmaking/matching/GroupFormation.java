@@ -0,0 +1,64 @@
+package com.learn.matchmaking.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The two grouping strategies applied to an already ranked pool: consecutive chunks of
+ * {@code groupSize} players, or the fair strategy that alternates between the best and the
+ * worst remaining player.
+ */
+public final class GroupFormation {
+
+    private GroupFormation() {
+    }
+
+    public static <T> List<List<T>> form(int count, int groupSize, boolean fair, IntFunction<T> rankedAt) {
+
+        return fair ? fair(count, groupSize, rankedAt) : unfair(count, groupSize, rankedAt);
+    }
+
+    private static <T> List<List<T>> unfair(int count, int groupSize, IntFunction<T> rankedAt) {
+
+        List<List<T>> matchGroups = new ArrayList<>();
+        List<T> currentGroup = new ArrayList<>();
+
+        for (int rank = 0; rank < count; rank++) {
+
+            currentGroup.add(rankedAt.apply(rank));
+            if (currentGroup.size() == groupSize) {
+                matchGroups.add(currentGroup);
+                currentGroup = new ArrayList<>();
+            }
+        }
+        if (!currentGroup.isEmpty()) {
+            matchGroups.add(currentGroup);
+        }
+
+        return matchGroups;
+    }
+
+    private static <T> List<List<T>> fair(int count, int groupSize, IntFunction<T> rankedAt) {
+
+        List<List<T>> matchGroups = new ArrayList<>();
+        int left = 0;
+        int right = count - 1;
+
+        while (left <= right) {
+
+            List<T> currentGroup = new ArrayList<>();
+            for (int i = 0; i < groupSize && left <= right; i++) {
+
+                if (i % 2 == 0) {
+                    currentGroup.add(rankedAt.apply(left++));
+                } else {
+                    currentGroup.add(rankedAt.apply(right--));
+                }
+            }
+            matchGroups.add(currentGroup);
+        }
+
+        return matchGroups;
+    }
+}
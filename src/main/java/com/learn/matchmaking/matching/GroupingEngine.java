@@ -0,0 +1,22 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.util.List;
+
+/**
+ * One way of turning a loaded pool into match groups. {@code MatchService} picks the
+ * implementation named by {@link MatchRequest#getEngine()}.
+ */
+public interface GroupingEngine {
+
+    MatchEngine engine();
+
+    /**
+     * @throws IllegalArgumentException when the request cannot be served by this engine; the
+     *                                  message is returned to the caller
+     */
+    List<List<PlayerBasicDTO>> formGroups(ScoringPlan scoringPlan, PlayerColumns columns, MatchRequest matchRequest);
+}
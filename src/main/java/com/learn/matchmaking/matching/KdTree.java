@@ -0,0 +1,482 @@
+package com.learn.matchmaking.matching;
+
+import java.util.Arrays;
+
+/**
+ * KD-tree over fixed-dimension points, addressed by row. Interior nodes split on the widest
+ * dimension at its median; leaves hold up to {@value #LEAF_CAPACITY} points whose coordinates
+ * are copied next to each other, so a query scans a leaf sequentially instead of chasing one
+ * node per point. Inserts fill the spare room of a leaf and split it once it is full; deletes
+ * only mark the point. Every node counts the live points below it, so emptied subtrees are
+ * skipped, and the live points are rebuilt once the changes since the last build outnumber them.
+ */
+public final class KdTree {
+
+    private static final int NONE = -1;
+    private static final int LEAF_CAPACITY = 16;
+    private static final int BUILD_LEAF_SIZE = LEAF_CAPACITY / 2;
+    private static final int MIN_REBUILD_CHANGES = 1_024;
+
+    private final int dims;
+
+    private double[] coords;
+    private boolean[] deleted;
+    private int[] leafOf;
+    private int rows;
+    private int liveCount;
+
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] splitDim;
+    private double[] splitValue;
+    private int[] live;
+    private int[] leafStart;
+    private int[] leafCount;
+    private int nodes;
+    private int root;
+
+    private int[] slotRows;
+    private double[] slotCoords;
+    private int slots;
+
+    private int changesSinceBuild;
+
+    private KdTree(int dims, double[] coords, int rows) {
+
+        this.dims = dims;
+        this.coords = coords;
+        this.rows = rows;
+        this.liveCount = rows;
+        this.deleted = new boolean[Math.max(rows, 16)];
+        this.leafOf = new int[Math.max(rows, 16)];
+    }
+
+    /**
+     * @param coords row-major points, {@code dims} coordinates per row
+     */
+    public static KdTree build(double[] coords, int dims) {
+
+        if (dims < 1 || coords.length % dims != 0) {
+            throw new IllegalArgumentException("Coordinates must hold a whole number of points");
+        }
+        int rows = coords.length / dims;
+        KdTree tree = new KdTree(dims, Arrays.copyOf(coords, Math.max(rows, 16) * dims), rows);
+        tree.rebuild();
+
+        return tree;
+    }
+
+    public int dims() {
+
+        return dims;
+    }
+
+    public int size() {
+
+        return liveCount;
+    }
+
+    public boolean isLive(int row) {
+
+        return row >= 0 && row < rows && !deleted[row];
+    }
+
+    public double coordinate(int row, int dim) {
+
+        return coords[row * dims + dim];
+    }
+
+    /**
+     * Adds a point and returns its row.
+     */
+    public int insert(double[] point) {
+
+        if (point.length != dims) {
+            throw new IllegalArgumentException("Point must have " + dims + " coordinates");
+        }
+        if (rows == deleted.length) {
+            int capacity = rows * 2;
+            coords = Arrays.copyOf(coords, capacity * dims);
+            deleted = Arrays.copyOf(deleted, capacity);
+            leafOf = Arrays.copyOf(leafOf, capacity);
+        }
+        int row = rows++;
+        System.arraycopy(point, 0, coords, row * dims, dims);
+        liveCount++;
+
+        int node = root;
+        while (left[node] != NONE) {
+            live[node]++;
+            node = point[splitDim[node]] < splitValue[node] ? left[node] : right[node];
+        }
+        live[node]++;
+        if (leafCount[node] < LEAF_CAPACITY) {
+            addToLeaf(node, row);
+        } else {
+            splitLeaf(node, row);
+        }
+
+        if (++changesSinceBuild > Math.max(MIN_REBUILD_CHANGES, liveCount)) {
+            rebuild();
+        }
+        return row;
+    }
+
+    public boolean delete(int row) {
+
+        if (!isLive(row)) {
+            return false;
+        }
+        deleted[row] = true;
+        liveCount--;
+        for (int node = leafOf[row]; node != NONE; node = parent[node]) {
+            live[node]--;
+        }
+
+        if (++changesSinceBuild > Math.max(MIN_REBUILD_CHANGES, liveCount)) {
+            rebuild();
+        }
+        return true;
+    }
+
+    /**
+     * Writes up to {@code out.length} live rows nearest to {@code query} into {@code out},
+     * nearest first, ties broken by row; {@code exclude} is skipped. Returns how many rows
+     * were written.
+     */
+    public int nearest(double[] query, int exclude, int[] out) {
+
+        if (out.length == 0) {
+            return 0;
+        }
+        Neighbours neighbours = new Neighbours(out.length);
+        search(root, query, exclude, neighbours);
+
+        return neighbours.drainNearestFirst(out);
+    }
+
+    public int nearest(int row, int[] out) {
+
+        return nearest(Arrays.copyOfRange(coords, row * dims, row * dims + dims), row, out);
+    }
+
+    /**
+     * Rebuilds a balanced tree from the live points; rows keep their numbers.
+     */
+    public void rebuild() {
+
+        int[] order = new int[liveCount];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!deleted[row]) {
+                order[count++] = row;
+            }
+        }
+
+        int leaves = Math.max(1, 2 * ((count + BUILD_LEAF_SIZE - 1) / BUILD_LEAF_SIZE));
+        allocateNodes(2 * leaves);
+        slotRows = new int[leaves * LEAF_CAPACITY];
+        slotCoords = new double[leaves * LEAF_CAPACITY * dims];
+        nodes = 0;
+        slots = 0;
+        root = build(order, 0, count, NONE);
+        changesSinceBuild = 0;
+    }
+
+    private int build(int[] order, int from, int to, int parentNode) {
+
+        if (to - from <= BUILD_LEAF_SIZE) {
+            int leaf = newLeaf(parentNode);
+            for (int i = from; i < to; i++) {
+                addToLeaf(leaf, order[i]);
+            }
+            live[leaf] = to - from;
+            return leaf;
+        }
+
+        int dim = widestDim(order, from, to);
+        int mid = (from + to) >>> 1;
+        select(order, from, to - 1, mid, dim);
+
+        int node = newNode(parentNode);
+        splitDim[node] = dim;
+        splitValue[node] = coords[order[mid] * dims + dim];
+        live[node] = to - from;
+        int leftChild = build(order, from, mid, node);
+        int rightChild = build(order, mid, to, node);
+        left[node] = leftChild;
+        right[node] = rightChild;
+
+        return node;
+    }
+
+    /**
+     * Turns a full leaf into an interior node over two new leaves holding its live points and
+     * {@code row}. The slots of the old leaf stay unused until the next rebuild.
+     */
+    private void splitLeaf(int leaf, int row) {
+
+        int[] order = new int[LEAF_CAPACITY + 1];
+        int count = 0;
+        for (int slot = leafStart[leaf]; slot < leafStart[leaf] + leafCount[leaf]; slot++) {
+            if (!deleted[slotRows[slot]]) {
+                order[count++] = slotRows[slot];
+            }
+        }
+        order[count++] = row;
+
+        int dim = widestDim(order, 0, count);
+        int mid = count >>> 1;
+        select(order, 0, count - 1, mid, dim);
+
+        int leftLeaf = newLeaf(leaf);
+        int rightLeaf = newLeaf(leaf);
+        for (int i = 0; i < count; i++) {
+            addToLeaf(i < mid ? leftLeaf : rightLeaf, order[i]);
+        }
+        live[leftLeaf] = mid;
+        live[rightLeaf] = count - mid;
+
+        splitDim[leaf] = dim;
+        splitValue[leaf] = coords[order[mid] * dims + dim];
+        left[leaf] = leftLeaf;
+        right[leaf] = rightLeaf;
+        leafCount[leaf] = 0;
+    }
+
+    private int newNode(int parentNode) {
+
+        if (nodes == left.length) {
+            allocateNodes(nodes * 2);
+        }
+        int node = nodes++;
+        left[node] = NONE;
+        right[node] = NONE;
+        parent[node] = parentNode;
+        live[node] = 0;
+        leafCount[node] = 0;
+        return node;
+    }
+
+    private int newLeaf(int parentNode) {
+
+        int leaf = newNode(parentNode);
+        if (slots + LEAF_CAPACITY > slotRows.length) {
+            int capacity = Math.max(slotRows.length * 2, slots + LEAF_CAPACITY);
+            slotRows = Arrays.copyOf(slotRows, capacity);
+            slotCoords = Arrays.copyOf(slotCoords, capacity * dims);
+        }
+        leafStart[leaf] = slots;
+        slots += LEAF_CAPACITY;
+        return leaf;
+    }
+
+    private void addToLeaf(int leaf, int row) {
+
+        int slot = leafStart[leaf] + leafCount[leaf]++;
+        slotRows[slot] = row;
+        System.arraycopy(coords, row * dims, slotCoords, slot * dims, dims);
+        leafOf[row] = leaf;
+    }
+
+    private void allocateNodes(int capacity) {
+
+        if (left != null && left.length >= capacity) {
+            return;
+        }
+        left = left == null ? new int[capacity] : Arrays.copyOf(left, capacity);
+        right = right == null ? new int[capacity] : Arrays.copyOf(right, capacity);
+        parent = parent == null ? new int[capacity] : Arrays.copyOf(parent, capacity);
+        splitDim = splitDim == null ? new int[capacity] : Arrays.copyOf(splitDim, capacity);
+        splitValue = splitValue == null ? new double[capacity] : Arrays.copyOf(splitValue, capacity);
+        live = live == null ? new int[capacity] : Arrays.copyOf(live, capacity);
+        leafStart = leafStart == null ? new int[capacity] : Arrays.copyOf(leafStart, capacity);
+        leafCount = leafCount == null ? new int[capacity] : Arrays.copyOf(leafCount, capacity);
+    }
+
+    private int widestDim(int[] order, int from, int to) {
+
+        int widest = 0;
+        double widestSpread = -1;
+        for (int dim = 0; dim < dims; dim++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = coords[order[i] * dims + dim];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widest = dim;
+                widestSpread = max - min;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Quickselect: moves the row with the {@code k}-th smallest coordinate to {@code k}, with
+     * coordinates that are not greater before it and not smaller after it. Equal coordinates
+     * may end up on either side; the search stays exact because it only skips a side whose
+     * points all lie farther away than the split plane.
+     */
+    private void select(int[] order, int lo, int hi, int k, int dim) {
+
+        while (lo < hi) {
+            double pivot = coords[order[(lo + hi) >>> 1] * dims + dim];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coords[order[i] * dims + dim] < pivot) {
+                    i++;
+                }
+                while (coords[order[j] * dims + dim] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void search(int node, double[] query, int exclude, Neighbours neighbours) {
+
+        if (live[node] == 0) {
+            return;
+        }
+        if (left[node] == NONE) {
+            int end = leafStart[node] + leafCount[node];
+            for (int slot = leafStart[node]; slot < end; slot++) {
+                int row = slotRows[slot];
+                if (deleted[row] || row == exclude) {
+                    continue;
+                }
+                double distance = 0;
+                int offset = slot * dims;
+                for (int dim = 0; dim < dims; dim++) {
+                    double delta = query[dim] - slotCoords[offset + dim];
+                    distance += delta * delta;
+                }
+                neighbours.offer(distance, row);
+            }
+            return;
+        }
+
+        double delta = query[splitDim[node]] - splitValue[node];
+        int near = delta < 0 ? left[node] : right[node];
+        int far = delta < 0 ? right[node] : left[node];
+        search(near, query, exclude, neighbours);
+        if (!neighbours.isFull() || delta * delta <= neighbours.worstDistance()) {
+            search(far, query, exclude, neighbours);
+        }
+    }
+
+    /**
+     * Bounded max-heap of the best {@code k} candidates seen so far.
+     */
+    private static final class Neighbours {
+
+        private final double[] distances;
+        private final int[] rows;
+        private int size;
+
+        private Neighbours(int k) {
+
+            distances = new double[k];
+            rows = new int[k];
+        }
+
+        private boolean isFull() {
+
+            return size == rows.length;
+        }
+
+        private double worstDistance() {
+
+            return distances[0];
+        }
+
+        private void offer(double distance, int row) {
+
+            if (size < rows.length) {
+                distances[size] = distance;
+                rows[size] = row;
+                siftUp(size++);
+            } else if (isCloser(distance, row, 0)) {
+                distances[0] = distance;
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        private int drainNearestFirst(int[] out) {
+
+            int count = size;
+            while (size > 0) {
+                out[--size] = rows[0];
+                distances[0] = distances[size];
+                rows[0] = rows[size];
+                siftDown(0);
+            }
+            return count;
+        }
+
+        private boolean isCloser(double distance, int row, int slot) {
+
+            int compare = Double.compare(distance, distances[slot]);
+            return compare < 0 || (compare == 0 && row < rows[slot]);
+        }
+
+        private void siftUp(int slot) {
+
+            while (slot > 0) {
+                int up = (slot - 1) >>> 1;
+                if (!isCloser(distances[up], rows[up], slot)) {
+                    break;
+                }
+                swap(slot, up);
+                slot = up;
+            }
+        }
+
+        private void siftDown(int slot) {
+
+            while (true) {
+                int worst = slot;
+                int child = 2 * slot + 1;
+                if (child < size && isCloser(distances[worst], rows[worst], child)) {
+                    worst = child;
+                }
+                if (child + 1 < size && isCloser(distances[worst], rows[worst], child + 1)) {
+                    worst = child + 1;
+                }
+                if (worst == slot) {
+                    return;
+                }
+                swap(slot, worst);
+                slot = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+        }
+    }
+}
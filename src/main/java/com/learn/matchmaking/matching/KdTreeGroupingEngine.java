@@ -0,0 +1,95 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forms groups by nearest-neighbour queries instead of ranking the whole pool. Each player is
+ * a point whose coordinates are its numeric target attributes, scaled by the target and
+ * multiplied by the attribute weight, so that distance follows the weighted relative
+ * difference the score is built from. Seeds are taken in score order, like the sorted engine
+ * ranks the pool, and every seed that is still unmatched is grouped with its nearest unmatched
+ * neighbours. Categorical attributes only influence the seed order.
+ */
+public final class KdTreeGroupingEngine implements GroupingEngine {
+
+    private final ScoringEngine scoringEngine;
+
+    public KdTreeGroupingEngine(ScoringEngine scoringEngine) {
+
+        this.scoringEngine = scoringEngine;
+    }
+
+    @Override
+    public MatchEngine engine() {
+
+        return MatchEngine.KD_TREE;
+    }
+
+    @Override
+    public List<List<PlayerBasicDTO>> formGroups(ScoringPlan scoringPlan, PlayerColumns columns,
+                                                 MatchRequest matchRequest) {
+
+        List<String> keys = new ArrayList<>();
+        for (String key : scoringPlan.attributeKeys()) {
+            if (scoringPlan.numericTarget(key) != null) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("KD-tree matchmaking needs at least one numeric target attribute");
+        }
+
+        List<List<PlayerBasicDTO>> matchGroups = new ArrayList<>();
+        int groupSize = matchRequest.getGroupSize();
+        if (groupSize < 1 || columns.size() == 0) {
+            return matchGroups;
+        }
+
+        int dims = keys.size();
+        double[] coords = new double[columns.size() * dims];
+        for (int dim = 0; dim < dims; dim++) {
+
+            String key = keys.get(dim);
+            double targetValue = scoringPlan.numericTarget(key);
+            double scale = scoringPlan.weight(key) / (targetValue == 0 ? 1.0 : Math.abs(targetValue));
+
+            AttributeColumn column = columns.column(key);
+            if (column == null || !column.hasNumbers()) {
+                continue;
+            }
+            double[] numbers = column.numbers();
+            long[] presence = column.numberPresence();
+            for (int row = 0; row < columns.size(); row++) {
+                if (Bitmaps.isSet(presence, row) && !Double.isNaN(numbers[row])) {
+                    coords[row * dims + dim] = numbers[row] * scale;
+                }
+            }
+        }
+
+        KdTree tree = KdTree.build(coords, dims);
+        int[] neighbours = new int[groupSize - 1];
+        for (int seed : scoringEngine.rank(scoringPlan, columns)) {
+
+            if (!tree.isLive(seed)) {
+                continue;
+            }
+            tree.delete(seed);
+            int found = tree.nearest(seed, neighbours);
+
+            List<PlayerBasicDTO> matchGroup = new ArrayList<>(groupSize);
+            matchGroup.add(columns.player(seed));
+            for (int i = 0; i < found; i++) {
+                tree.delete(neighbours[i]);
+                matchGroup.add(columns.player(neighbours[i]));
+            }
+            matchGroups.add(matchGroup);
+        }
+
+        return matchGroups;
+    }
+}
@@ -0,0 +1,88 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.model.Player;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar view of a player pool. The attribute dictionary maps each attribute key to an
+ * {@link AttributeColumn}; rows are addressed by their position in the loaded pool. The
+ * players are kept as well, since a grouped player is returned with its attribute map, so the
+ * columns are held in addition to the maps.
+ */
+public final class PlayerColumns {
+
+    private final List<Player> players;
+    private final Map<String, AttributeColumn> columns;
+
+    private PlayerColumns(List<Player> players, Map<String, AttributeColumn> columns) {
+
+        this.players = players;
+        this.columns = columns;
+    }
+
+    public static PlayerColumns of(List<Player> players) {
+
+        Map<String, AttributeColumn> columns = new HashMap<>();
+
+        for (int row = 0; row < players.size(); row++) {
+
+            Map<String, Object> attributes = players.get(row).getAttributes();
+            if (attributes == null) {
+                continue;
+            }
+            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                columns.computeIfAbsent(attribute.getKey(), key -> new AttributeColumn(players.size()))
+                        .set(row, attribute.getValue());
+            }
+        }
+
+        return new PlayerColumns(players, columns);
+    }
+
+    public static PlayerColumns of(List<Player> players, Collection<String> attributeKeys) {
+
+        Map<String, AttributeColumn> columns = new HashMap<>();
+        for (String key : attributeKeys) {
+            columns.put(key, new AttributeColumn(players.size()));
+        }
+
+        for (int row = 0; row < players.size(); row++) {
+
+            Map<String, Object> attributes = players.get(row).getAttributes();
+            if (attributes == null) {
+                continue;
+            }
+            for (Map.Entry<String, AttributeColumn> column : columns.entrySet()) {
+                column.getValue().set(row, attributes.get(column.getKey()));
+            }
+        }
+
+        return new PlayerColumns(players, columns);
+    }
+
+    public int size() {
+
+        return players.size();
+    }
+
+    public AttributeColumn column(String attributeKey) {
+
+        return columns.get(attributeKey);
+    }
+
+    public PlayerBasicDTO player(int row) {
+
+        return new PlayerBasicDTO(players.get(row));
+    }
+
+    public Instant searchingSince(int row) {
+
+        return players.get(row).getSearchingSince();
+    }
+}
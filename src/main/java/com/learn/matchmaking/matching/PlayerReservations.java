@@ -0,0 +1,94 @@
+package com.learn.matchmaking.matching;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory claim table that keeps concurrent match computations from handing out the same
+ * player twice. Every computation takes a fresh epoch and claims players under it; a claim is
+ * taken with {@code putIfAbsent}, or by compare-and-replace once the previous holder's claim
+ * has expired, so no lock is held across a match. Claims are released by their epoch, which
+ * keeps a late release from dropping a claim another computation has taken since.
+ */
+public final class PlayerReservations {
+
+    private record Reservation(long epoch, long expiresAt) {
+    }
+
+    private final Map<String, Reservation> claims = new ConcurrentHashMap<>();
+    private final AtomicLong epochs = new AtomicLong();
+    private final AtomicLong lastPurge;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public PlayerReservations(long ttlMillis, Clock clock) {
+
+        this.ttlMillis = Math.max(ttlMillis, 1);
+        this.clock = clock;
+        this.lastPurge = new AtomicLong(clock.millis());
+    }
+
+    /**
+     * Starts a new claim epoch; also drops expired claims, at most once per time-to-live.
+     */
+    public long newEpoch() {
+
+        long now = clock.millis();
+        long purgedAt = lastPurge.get();
+        if (now - purgedAt >= ttlMillis && lastPurge.compareAndSet(purgedAt, now)) {
+            claims.values().removeIf(reservation -> reservation.expiresAt() <= now);
+        }
+        return epochs.incrementAndGet();
+    }
+
+    public boolean claim(String playerId, long epoch) {
+
+        long now = clock.millis();
+        Reservation reservation = new Reservation(epoch, now + ttlMillis);
+
+        while (true) {
+            Reservation current = claims.putIfAbsent(playerId, reservation);
+            if (current == null) {
+                return true;
+            }
+            if (current.epoch() == epoch) {
+                return true;
+            }
+            if (current.expiresAt() > now) {
+                return false;
+            }
+            if (claims.replace(playerId, current, reservation)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(String playerId, long epoch) {
+
+        Reservation current = claims.get(playerId);
+        if (current != null && current.epoch() == epoch) {
+            claims.remove(playerId, current);
+        }
+    }
+
+    public void releaseAll(Collection<String> playerIds, long epoch) {
+
+        for (String playerId : playerIds) {
+            release(playerId, epoch);
+        }
+    }
+
+    public boolean isClaimed(String playerId) {
+
+        Reservation reservation = claims.get(playerId);
+        return reservation != null && reservation.expiresAt() > clock.millis();
+    }
+
+    public int size() {
+
+        return claims.size();
+    }
+}
@@ -0,0 +1,75 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Searching players kept in score order for one scoring plan. Entries are keyed by
+ * (score descending, id ascending) in a skip list, so inserts, removals and re-scores are
+ * O(log n) and reading the ranking is a walk instead of a sort.
+ */
+public final class RankedPool {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::id);
+
+    private final ScoringPlan scoringPlan;
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public RankedPool(ScoringPlan scoringPlan) {
+
+        this.scoringPlan = scoringPlan;
+    }
+
+    public void upsert(PlayerBasicDTO player) {
+
+        Entry entry = new Entry(scoringPlan.score(player.getAttributes()), player.getId(), player);
+        entries.compute(player.getId(), (id, previous) -> {
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    public void addIfAbsent(PlayerBasicDTO player) {
+
+        Entry entry = new Entry(scoringPlan.score(player.getAttributes()), player.getId(), player);
+        entries.computeIfAbsent(player.getId(), id -> {
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    public void remove(String playerId) {
+
+        entries.computeIfPresent(playerId, (id, previous) -> {
+            ranking.remove(previous);
+            return null;
+        });
+    }
+
+    public int size() {
+
+        return entries.size();
+    }
+
+    public List<PlayerBasicDTO> ranked() {
+
+        List<PlayerBasicDTO> players = new ArrayList<>(entries.size());
+        for (Entry entry : ranking) {
+            players.add(entry.player());
+        }
+        return players;
+    }
+
+    private record Entry(double score, String id, PlayerBasicDTO player) {
+    }
+}
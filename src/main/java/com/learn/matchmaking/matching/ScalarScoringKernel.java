@@ -0,0 +1,15 @@
+package com.learn.matchmaking.matching;
+
+final class ScalarScoringKernel implements ScoringKernel {
+
+    @Override
+    public void accumulateNumeric(double[] numbers, long[] presence, double target, double weight, double[] scores,
+                                  int from, int to) {
+
+        for (int row = from; row < to; row++) {
+            if (Bitmaps.isSet(presence, row)) {
+                scores[row] += ScoringPlan.numericSimilarity(numbers[row], target) * weight;
+            }
+        }
+    }
+}
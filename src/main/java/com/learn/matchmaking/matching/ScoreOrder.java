@@ -0,0 +1,131 @@
+package com.learn.matchmaking.matching;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Orders row indices by score, highest first. The sort is stable, so players with equal
+ * scores keep the order in which they were loaded.
+ */
+public final class ScoreOrder {
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int PARALLEL_SORT_GRANULARITY = 8_192;
+
+    private ScoreOrder() {
+    }
+
+    public static int[] descending(double[] scores) {
+
+        int[] order = identity(scores.length);
+        sort(order, new int[order.length], 0, order.length, scores);
+
+        return order;
+    }
+
+    /**
+     * Same ordering as {@link #descending(double[])}: a stable sort has exactly one result,
+     * so splitting the merge sort across the pool cannot change it.
+     */
+    public static int[] descending(double[] scores, ForkJoinPool pool) {
+
+        int[] order = identity(scores.length);
+        pool.invoke(new ParallelMergeSort(order, new int[order.length], 0, order.length, scores));
+
+        return order;
+    }
+
+    private static int[] identity(int length) {
+
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    private static void sort(int[] order, int[] buffer, int from, int to, double[] scores) {
+
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, from, to, scores);
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        sort(order, buffer, from, mid, scores);
+        sort(order, buffer, mid, to, scores);
+        merge(order, buffer, from, mid, to, scores);
+    }
+
+    static void insertionSort(int[] order, int from, int to, double[] scores) {
+
+        for (int i = from + 1; i < to; i++) {
+
+            int row = order[i];
+            int j = i - 1;
+            while (j >= from && Double.compare(scores[order[j]], scores[row]) < 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = row;
+        }
+    }
+
+    static void merge(int[] order, int[] buffer, int from, int mid, int to, double[] scores) {
+
+        if (Double.compare(scores[order[mid - 1]], scores[order[mid]]) >= 0) {
+            return;
+        }
+
+        System.arraycopy(order, from, buffer, from, to - from);
+
+        int left = from;
+        int right = mid;
+        int out = from;
+        while (left < mid && right < to) {
+            if (Double.compare(scores[buffer[left]], scores[buffer[right]]) < 0) {
+                order[out++] = buffer[right++];
+            } else {
+                order[out++] = buffer[left++];
+            }
+        }
+        while (left < mid) {
+            order[out++] = buffer[left++];
+        }
+        while (right < to) {
+            order[out++] = buffer[right++];
+        }
+    }
+
+    private static final class ParallelMergeSort extends RecursiveAction {
+
+        private final int[] order;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final double[] scores;
+
+        private ParallelMergeSort(int[] order, int[] buffer, int from, int to, double[] scores) {
+
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.scores = scores;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= PARALLEL_SORT_GRANULARITY) {
+                sort(order, buffer, from, to, scores);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParallelMergeSort(order, buffer, from, mid, scores),
+                    new ParallelMergeSort(order, buffer, mid, to, scores));
+            merge(order, buffer, from, mid, to, scores);
+        }
+    }
+}
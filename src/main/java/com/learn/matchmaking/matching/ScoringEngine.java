@@ -0,0 +1,92 @@
+package com.learn.matchmaking.matching;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scores and orders a pool. Pools of at least {@code parallelThreshold} rows are scored in
+ * 64-row aligned chunks and merge-sorted on a dedicated {@link ForkJoinPool}; smaller pools
+ * stay on the calling thread. Both paths produce identical scores and ordering.
+ */
+public class ScoringEngine {
+
+    private static final int MIN_CHUNK_SIZE = 4_096;
+
+    private final ScoringKernel kernel;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public ScoringEngine(ScoringKernel kernel, ForkJoinPool pool, int parallelThreshold) {
+
+        this.kernel = kernel;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public static ScoringEngine sequential(ScoringKernel kernel) {
+
+        return new ScoringEngine(kernel, null, Integer.MAX_VALUE);
+    }
+
+    public double[] score(ScoringPlan plan, PlayerColumns columns) {
+
+        double[] scores = new double[columns.size()];
+
+        if (isParallel(scores.length)) {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE, scores.length / (pool.getParallelism() * 4));
+            pool.invoke(new ScoreChunk(plan, columns, scores, 0, scores.length, (chunkSize + 63) & ~63));
+        } else {
+            plan.score(columns, kernel, scores, 0, scores.length);
+        }
+
+        return scores;
+    }
+
+    public int[] order(double[] scores) {
+
+        return isParallel(scores.length) ? ScoreOrder.descending(scores, pool) : ScoreOrder.descending(scores);
+    }
+
+    public int[] rank(ScoringPlan plan, PlayerColumns columns) {
+
+        return order(score(plan, columns));
+    }
+
+    private boolean isParallel(int rows) {
+
+        return pool != null && rows >= parallelThreshold;
+    }
+
+    private final class ScoreChunk extends RecursiveAction {
+
+        private final ScoringPlan plan;
+        private final PlayerColumns columns;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ScoreChunk(ScoringPlan plan, PlayerColumns columns, double[] scores, int from, int to, int chunkSize) {
+
+            this.plan = plan;
+            this.columns = columns;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= chunkSize) {
+                plan.score(columns, kernel, scores, from, to);
+                return;
+            }
+
+            int mid = from + (((to - from) >>> 1) & ~63);
+            invokeAll(new ScoreChunk(plan, columns, scores, from, mid, chunkSize),
+                    new ScoreChunk(plan, columns, scores, mid, to, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.learn.matchmaking.matching;
+
+/**
+ * Accumulates the weighted similarity of one numeric attribute column into the running
+ * scores of every row that has a numeric value for it. Ranges always start on a multiple
+ * of 64 rows, so a range never splits a presence bitmap word.
+ */
+public interface ScoringKernel {
+
+    default void accumulateNumeric(double[] numbers, long[] presence, double target, double weight, double[] scores) {
+
+        accumulateNumeric(numbers, presence, target, weight, scores, 0, scores.length);
+    }
+
+    void accumulateNumeric(double[] numbers, long[] presence, double target, double weight, double[] scores,
+                           int from, int to);
+}
@@ -0,0 +1,47 @@
+package com.learn.matchmaking.matching;
+
+public final class ScoringKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final ScoringKernel SCALAR = new ScalarScoringKernel();
+
+    private ScoringKernels() {
+    }
+
+    public static ScoringKernel scalar() {
+
+        return SCALAR;
+    }
+
+    public static boolean isVectorAvailable() {
+
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    public static ScoringKernel vector() {
+
+        if (!isVectorAvailable()) {
+            throw new IllegalStateException("Module " + VECTOR_MODULE + " is not enabled (use --add-modules "
+                    + VECTOR_MODULE + ")");
+        }
+        try {
+            return (ScoringKernel) Class.forName(ScoringKernels.class.getPackageName() + ".VectorScoringKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Vector scoring kernel could not be loaded", e);
+        }
+    }
+
+    public static ScoringKernel select(boolean vectorEnabled) {
+
+        if (vectorEnabled && isVectorAvailable()) {
+            try {
+                return vector();
+            } catch (IllegalStateException e) {
+                return SCALAR;
+            }
+        }
+        return SCALAR;
+    }
+}
@@ -0,0 +1,205 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchRequest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MatchRequest} compiled once into typed attribute slots, so that every player
+ * can be scored in a single pass instead of once per sort comparison.
+ */
+public final class ScoringPlan {
+
+    private final String[] keys;
+    private final boolean[] numeric;
+    private final Object[] targets;
+    private final double[] numericTargets;
+    private final double[] weights;
+    private final double totalWeight;
+
+    private ScoringPlan(String[] keys, boolean[] numeric, Object[] targets, double[] numericTargets,
+                        double[] weights, double totalWeight) {
+
+        this.keys = keys;
+        this.numeric = numeric;
+        this.targets = targets;
+        this.numericTargets = numericTargets;
+        this.weights = weights;
+        this.totalWeight = totalWeight;
+    }
+
+    public static ScoringPlan compile(MatchRequest matchRequest) {
+
+        Map<String, Object> targetAttributes = matchRequest.getTargetAttributes();
+        Map<String, Double> attributeWeights = matchRequest.getAttributeWeights();
+        int slots = targetAttributes.size();
+
+        String[] keys = new String[slots];
+        boolean[] numeric = new boolean[slots];
+        Object[] targets = new Object[slots];
+        double[] numericTargets = new double[slots];
+        double[] weights = new double[slots];
+        double totalWeight = 0.0;
+
+        int slot = 0;
+        for (Map.Entry<String, Object> entry : targetAttributes.entrySet()) {
+
+            keys[slot] = entry.getKey();
+            targets[slot] = entry.getValue();
+            if (entry.getValue() instanceof Number number) {
+                numeric[slot] = true;
+                numericTargets[slot] = number.doubleValue();
+            }
+            weights[slot] = attributeWeights.get(entry.getKey());
+            totalWeight += weights[slot];
+            slot++;
+        }
+
+        return new ScoringPlan(keys, numeric, targets, numericTargets, weights, totalWeight);
+    }
+
+    public double score(Map<String, Object> attributes) {
+
+        double totalScore = 0.0;
+
+        for (int slot = 0; slot < keys.length; slot++) {
+
+            Object playerValue = attributes == null ? null : attributes.get(keys[slot]);
+            totalScore += attributeScore(slot, playerValue) * weights[slot];
+        }
+
+        return totalWeight > 0 ? totalScore / totalWeight : 0.0;
+    }
+
+    public double[] score(PlayerColumns columns) {
+
+        double[] scores = new double[columns.size()];
+        score(columns, ScoringKernels.scalar(), scores, 0, scores.length);
+
+        return scores;
+    }
+
+    public void score(PlayerColumns columns, ScoringKernel kernel, double[] scores, int from, int to) {
+
+        for (int slot = 0; slot < keys.length; slot++) {
+
+            AttributeColumn column = columns.column(keys[slot]);
+            if (column == null) {
+                continue;
+            }
+            if (numeric[slot]) {
+                if (column.hasNumbers()) {
+                    kernel.accumulateNumeric(column.numbers(), column.numberPresence(), numericTargets[slot],
+                            weights[slot], scores, from, to);
+                }
+            } else {
+                accumulateCategorical(column, column.code(targets[slot]), weights[slot], scores, from, to);
+            }
+        }
+
+        for (int row = from; row < to; row++) {
+            scores[row] = totalWeight > 0 ? scores[row] / totalWeight : 0.0;
+        }
+    }
+
+    public List<String> attributeKeys() {
+
+        return List.of(keys);
+    }
+
+    /**
+     * Numeric target of the given attribute, or {@code null} when the attribute is not a
+     * numeric target of this plan.
+     */
+    public Double numericTarget(String attributeKey) {
+
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (numeric[slot] && keys[slot].equals(attributeKey)) {
+                return numericTargets[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Target value of the given attribute, or {@code null} when the plan has no such target.
+     */
+    public Object target(String attributeKey) {
+
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot].equals(attributeKey)) {
+                return targets[slot];
+            }
+        }
+        return null;
+    }
+
+    public double totalWeight() {
+
+        return totalWeight;
+    }
+
+    public double weight(String attributeKey) {
+
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot].equals(attributeKey)) {
+                return weights[slot];
+            }
+        }
+        return 0.0;
+    }
+
+    /**
+     * The numeric target attribute with the largest weight, or {@code null} when the plan has
+     * no numeric target.
+     */
+    public String heaviestNumericKey() {
+
+        String heaviest = null;
+        double heaviestWeight = Double.NEGATIVE_INFINITY;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (numeric[slot] && weights[slot] > heaviestWeight) {
+                heaviest = keys[slot];
+                heaviestWeight = weights[slot];
+            }
+        }
+        return heaviest;
+    }
+
+    private static void accumulateCategorical(AttributeColumn column, int targetCode, double weight, double[] scores,
+                                              int from, int to) {
+
+        if (!column.hasCodes() || targetCode == AttributeColumn.ABSENT) {
+            return;
+        }
+        int[] codes = column.codes();
+        long[] presence = column.codePresence();
+
+        for (int row = from; row < to; row++) {
+            if (codes[row] == targetCode && Bitmaps.isSet(presence, row)) {
+                scores[row] += weight;
+            }
+        }
+    }
+
+    private double attributeScore(int slot, Object playerValue) {
+
+        if (numeric[slot]) {
+            return playerValue instanceof Number number
+                    ? numericSimilarity(number.doubleValue(), numericTargets[slot])
+                    : 0.0;
+        }
+
+        return playerValue != null && playerValue.equals(targets[slot]) ? 1.0 : 0.0;
+    }
+
+    static double numericSimilarity(double playerValue, double targetValue) {
+
+        if (playerValue == targetValue) {
+            return 1.0;
+        }
+
+        return 1 - Math.abs(playerValue - targetValue) / Math.max(playerValue, targetValue);
+    }
+}
@@ -0,0 +1,292 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the players searching for a match. Every player holds a slot,
+ * reused after the player leaves. Categorical attribute values (strings, booleans) map to the
+ * {@link SlotSet} of players holding them, which stays a short sorted array for rare values;
+ * numeric attributes are only kept in a column of values that both {@code anyOf} and range
+ * filters scan, since numbers such as ratings are mostly distinct and would otherwise need a
+ * set per value. Filters are answered with OR (values of one filter) and AND (between filters)
+ * over {@link BitSet}s built per query, before any player is loaded or scored.
+ * <p>
+ * Numbers are compared by value, so {@code 5} and {@code 5.0} are equal.
+ */
+public final class SearchingPlayerIndex {
+
+    private static final int INITIAL_CAPACITY = 1_024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<String> idsBySlot = new ArrayList<>();
+    private final List<Map<String, Object>> attributesBySlot = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Map<Object, SlotSet>> valueSlots = new HashMap<>();
+    private final Map<String, NumericColumn> numericColumns = new HashMap<>();
+
+    public void upsert(String playerId, Map<String, Object> attributes) {
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(playerId);
+            if (slot == null) {
+                slot = freeSlots.isEmpty() ? idsBySlot.size() : freeSlots.pop();
+                if (slot == idsBySlot.size()) {
+                    idsBySlot.add(playerId);
+                    attributesBySlot.add(null);
+                } else {
+                    idsBySlot.set(slot, playerId);
+                }
+                slotsById.put(playerId, slot);
+            } else {
+                unindex(slot);
+            }
+            index(slot, attributes == null ? Map.of() : new HashMap<>(attributes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the changed attributes on an indexed player, keeping the others.
+     *
+     * @return false when the player is not indexed
+     */
+    public boolean merge(String playerId, Map<String, Object> changedAttributes) {
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(playerId);
+            if (slot == null) {
+                return false;
+            }
+            Map<String, Object> attributes = new HashMap<>(attributesBySlot.get(slot));
+            attributes.putAll(changedAttributes);
+            unindex(slot);
+            index(slot, attributes);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String playerId) {
+
+        lock.readLock().lock();
+        try {
+            return slotsById.containsKey(playerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(String playerId) {
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(playerId);
+            if (slot != null) {
+                unindex(slot);
+                idsBySlot.set(slot, null);
+                attributesBySlot.set(slot, null);
+                freeSlots.push(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            idsBySlot.clear();
+            attributesBySlot.clear();
+            freeSlots.clear();
+            valueSlots.clear();
+            numericColumns.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> ids() {
+
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(slotsById.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the indexed players that pass every filter, in slot order.
+     */
+    public List<String> candidates(List<AttributeFilter> filters) {
+
+        lock.readLock().lock();
+        try {
+            BitSet matches = null;
+            for (AttributeFilter filter : filters) {
+                BitSet filterMatches = matches(filter);
+                if (matches == null) {
+                    matches = filterMatches;
+                } else {
+                    matches.and(filterMatches);
+                }
+                if (matches.isEmpty()) {
+                    break;
+                }
+            }
+            if (matches == null) {
+                return new ArrayList<>(slotsById.keySet());
+            }
+
+            List<String> playerIds = new ArrayList<>(matches.cardinality());
+            matches.stream().forEach(slot -> playerIds.add(idsBySlot.get(slot)));
+            return playerIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet matches(AttributeFilter filter) {
+
+        BitSet matches = null;
+        if (filter.getAnyOf() != null && !filter.getAnyOf().isEmpty()) {
+            matches = new BitSet();
+            Map<Object, SlotSet> holdersByValue = valueSlots.getOrDefault(filter.getAttribute(), Map.of());
+            NumericColumn column = numericColumns.get(filter.getAttribute());
+            for (Object value : filter.getAnyOf()) {
+                if (value instanceof Number number) {
+                    if (column != null) {
+                        column.equalTo(number.doubleValue(), matches);
+                    }
+                } else {
+                    SlotSet holders = holdersByValue.get(value);
+                    if (holders != null) {
+                        holders.orInto(matches);
+                    }
+                }
+            }
+        }
+        if (filter.getMin() != null || filter.getMax() != null) {
+            NumericColumn column = numericColumns.get(filter.getAttribute());
+            BitSet inRange = column == null ? new BitSet() : column.inRange(filter);
+            if (matches == null) {
+                matches = inRange;
+            } else {
+                matches.and(inRange);
+            }
+        }
+        return matches == null ? new BitSet() : matches;
+    }
+
+    private void index(int slot, Map<String, Object> attributes) {
+
+        attributesBySlot.set(slot, attributes);
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == null) {
+                continue;
+            }
+            if (attribute.getValue() instanceof Number number) {
+                numericColumns.computeIfAbsent(attribute.getKey(), key -> new NumericColumn())
+                        .set(slot, number.doubleValue());
+            } else {
+                valueSlots.computeIfAbsent(attribute.getKey(), key -> new HashMap<>())
+                        .computeIfAbsent(attribute.getValue(), key -> new SlotSet())
+                        .add(slot);
+            }
+        }
+    }
+
+    private void unindex(int slot) {
+
+        Map<String, Object> attributes = attributesBySlot.get(slot);
+        if (attributes == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == null) {
+                continue;
+            }
+            if (attribute.getValue() instanceof Number) {
+                numericColumns.get(attribute.getKey()).clear(slot);
+                continue;
+            }
+            Map<Object, SlotSet> holdersByValue = valueSlots.get(attribute.getKey());
+            SlotSet holders = holdersByValue.get(attribute.getValue());
+            holders.remove(slot);
+            if (holders.isEmpty()) {
+                holdersByValue.remove(attribute.getValue());
+                if (holdersByValue.isEmpty()) {
+                    valueSlots.remove(attribute.getKey());
+                }
+            }
+        }
+    }
+
+    private static final class NumericColumn {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+        private final BitSet presence = new BitSet();
+
+        private void set(int slot, double value) {
+
+            if (slot >= values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, slot + 1));
+            }
+            values[slot] = value;
+            presence.set(slot);
+        }
+
+        private void clear(int slot) {
+
+            presence.clear(slot);
+        }
+
+        private void equalTo(double value, BitSet target) {
+
+            for (int slot = presence.nextSetBit(0); slot >= 0; slot = presence.nextSetBit(slot + 1)) {
+                if (values[slot] == value) {
+                    target.set(slot);
+                }
+            }
+        }
+
+        private BitSet inRange(AttributeFilter filter) {
+
+            BitSet inRange = new BitSet();
+            for (int slot = presence.nextSetBit(0); slot >= 0; slot = presence.nextSetBit(slot + 1)) {
+                if (AttributeFilters.inRange(filter, values[slot])) {
+                    inRange.set(slot);
+                }
+            }
+            return inRange;
+        }
+    }
+}
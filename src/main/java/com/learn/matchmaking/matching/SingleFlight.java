@@ -0,0 +1,87 @@
+package com.learn.matchmaking.matching;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with an equal key into one computation. The first caller leads
+ * the flight and computes at once; callers with the same key that arrive while it computes
+ * join the flight instead of computing again. Once the computation is done the flight is
+ * sealed, and every participant receives the same result together with its seat number and
+ * the final number of participants, so that a result that must not be handed out twice can be
+ * partitioned between them. A caller that is alone pays nothing for coalescing.
+ */
+public final class SingleFlight<K, V> {
+
+    public record Share<V>(V value, int seat, int participants) {
+
+        public boolean isLeader() {
+
+            return seat == 0;
+        }
+    }
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private int participants;
+        private int sealedParticipants;
+    }
+
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    public Share<V> execute(K key, Supplier<V> computation) {
+
+        int[] seat = new int[1];
+        @SuppressWarnings("unchecked")
+        Flight<V>[] joined = new Flight[1];
+        flights.compute(key, (k, flight) -> {
+            Flight<V> current = flight == null ? new Flight<>() : flight;
+            seat[0] = current.participants++;
+            joined[0] = current;
+            return current;
+        });
+        Flight<V> flight = joined[0];
+
+        if (seat[0] == 0) {
+            lead(key, flight, computation);
+        }
+
+        try {
+            return new Share<>(flight.result.join(), seat[0], flight.sealedParticipants);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void lead(K key, Flight<V> flight, Supplier<V> computation) {
+
+        V value = null;
+        Throwable failure = null;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+
+        flights.compute(key, (k, current) -> {
+            flight.sealedParticipants = flight.participants;
+            return current == flight ? null : current;
+        });
+
+        if (failure == null) {
+            flight.result.complete(value);
+        } else {
+            flight.result.completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.learn.matchmaking.matching;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of index slots that stays small for rare values: it holds a sorted {@code int[]} while
+ * that is smaller than a bitmap up to its highest slot would be, and switches to a
+ * {@link BitSet} once the value is common enough for the bitmap to be cheaper (and back when
+ * it thins out again). A value held by a handful of players therefore costs a few ints, not
+ * a bitmap as long as the whole pool.
+ */
+final class SlotSet {
+
+    private static final int MIN_BITMAP_SIZE = 64;
+
+    private int[] slots = new int[4];
+    private int size;
+    private BitSet bitmap;
+
+    void add(int slot) {
+
+        if (bitmap != null) {
+            if (!bitmap.get(slot)) {
+                bitmap.set(slot);
+                size++;
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(slots, 0, size, slot);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        System.arraycopy(slots, insertAt, slots, insertAt + 1, size - insertAt);
+        slots[insertAt] = slot;
+        size++;
+        if (size >= MIN_BITMAP_SIZE && arrayIsLarger(slots[size - 1])) {
+            toBitmap();
+        }
+    }
+
+    void remove(int slot) {
+
+        if (bitmap != null) {
+            if (bitmap.get(slot)) {
+                bitmap.clear(slot);
+                size--;
+                // halve the threshold before switching back, so a value does not flip on every change
+                if (!arrayIsLarger(bitmap.length() / 2)) {
+                    toArray();
+                }
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(slots, 0, size, slot);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+        size--;
+        if (size < slots.length / 4 && slots.length > 4) {
+            slots = Arrays.copyOf(slots, slots.length / 2);
+        }
+    }
+
+    boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    void orInto(BitSet target) {
+
+        if (bitmap != null) {
+            target.or(bitmap);
+        } else {
+            for (int i = 0; i < size; i++) {
+                target.set(slots[i]);
+            }
+        }
+    }
+
+    private boolean arrayIsLarger(int highestSlot) {
+
+        return (long) size * Integer.SIZE > highestSlot;
+    }
+
+    private void toBitmap() {
+
+        bitmap = new BitSet(slots[size - 1] + 1);
+        for (int i = 0; i < size; i++) {
+            bitmap.set(slots[i]);
+        }
+        slots = null;
+    }
+
+    private void toArray() {
+
+        slots = new int[Math.max(Integer.highestOneBit(Math.max(size, 1)) * 2, 4)];
+        int i = 0;
+        for (int slot = bitmap.nextSetBit(0); slot >= 0; slot = bitmap.nextSetBit(slot + 1)) {
+            slots[i++] = slot;
+        }
+        bitmap = null;
+    }
+}
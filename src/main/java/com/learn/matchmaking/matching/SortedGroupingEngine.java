@@ -0,0 +1,36 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+
+import java.util.List;
+
+/**
+ * Ranks the whole pool by score and cuts the ranking into groups.
+ */
+public final class SortedGroupingEngine implements GroupingEngine {
+
+    private final ScoringEngine scoringEngine;
+
+    public SortedGroupingEngine(ScoringEngine scoringEngine) {
+
+        this.scoringEngine = scoringEngine;
+    }
+
+    @Override
+    public MatchEngine engine() {
+
+        return MatchEngine.SORTED;
+    }
+
+    @Override
+    public List<List<PlayerBasicDTO>> formGroups(ScoringPlan scoringPlan, PlayerColumns columns,
+                                                 MatchRequest matchRequest) {
+
+        int[] order = scoringEngine.rank(scoringPlan, columns);
+
+        return GroupFormation.form(order.length, matchRequest.getGroupSize(), matchRequest.isMatchTypeFair(),
+                rank -> columns.player(order[rank]));
+    }
+}
@@ -0,0 +1,44 @@
+package com.learn.matchmaking.matching;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the numeric similarity kernel. It performs the same IEEE operations in the
+ * same order as {@link ScalarScoringKernel}, so both kernels produce identical scores.
+ * Only loaded through {@link ScoringKernels} once the incubator module is known to be present.
+ */
+final class VectorScoringKernel implements ScoringKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void accumulateNumeric(double[] numbers, long[] presence, double target, double weight, double[] scores,
+                                  int from, int to) {
+
+        int lanes = SPECIES.length();
+        int upperBound = from + SPECIES.loopBound(to - from);
+        DoubleVector targets = DoubleVector.broadcast(SPECIES, target);
+        DoubleVector ones = DoubleVector.broadcast(SPECIES, 1.0);
+
+        int row = from;
+        for (; row < upperBound; row += lanes) {
+
+            VectorMask<Double> present = VectorMask.fromLong(SPECIES, presence[row >>> 6] >>> (row & 63));
+            if (!present.anyTrue()) {
+                continue;
+            }
+            DoubleVector values = DoubleVector.fromArray(SPECIES, numbers, row);
+            DoubleVector similarity = ones.sub(values.sub(targets).abs().div(values.max(targets)))
+                    .blend(ones, values.compare(VectorOperators.EQ, targets));
+
+            DoubleVector.fromArray(SPECIES, scores, row)
+                    .add(similarity.mul(weight), present)
+                    .intoArray(scores, row);
+        }
+
+        ScoringKernels.scalar().accumulateNumeric(numbers, presence, target, weight, scores, row, to);
+    }
+}
@@ -0,0 +1,32 @@
+package com.learn.matchmaking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One attribute of a player in the attribute-pattern layout: the attributes map stored again
+ * as an array of {@code {k, v}} pairs, so a single compound index on {@code k} and {@code v}
+ * serves equality and range filters on any attribute.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttributeEntry {
+
+    private String k;
+    private Object v;
+
+    public static List<AttributeEntry> of(Map<String, Object> attributes) {
+
+        List<AttributeEntry> entries = new ArrayList<>();
+        if (attributes != null) {
+            attributes.forEach((key, value) -> entries.add(new AttributeEntry(key, value)));
+        }
+        return entries;
+    }
+}
@@ -13,9 +13,20 @@ public class MyUserDetails implements UserDetails {
 
     public MyUserDetails(Users user) { this.user = user; }
 
+    public Users getUser() {
+        return user;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("USER"));
+        if (user.getRoles() == null || user.getRoles().isEmpty()) {
+            return List.of(new SimpleGrantedAuthority("USER"));
+        }
+        return user.getRoles().stream().map(SimpleGrantedAuthority::new).toList();
+    }
+
+    public long getVersion() {
+        return user.getVersion();
     }
 
     @Override
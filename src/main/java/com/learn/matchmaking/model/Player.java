@@ -9,6 +9,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -23,6 +25,16 @@ public class Player {
     private String name;
     private Map<String, Object> attributes;
     private Boolean isSearchingForMatch;
+    private Instant searchingSince;
+    private List<AttributeEntry> attributeIndex; // only written with matchmaking.attributes.index-layout=true
+
+    public Player(String id, String name, Map<String, Object> attributes, Boolean isSearchingForMatch) {
+        super();
+        this.id = id;
+        this.name = name;
+        this.attributes = attributes;
+        this.isSearchingForMatch = isSearchingForMatch;
+    }
 
     public Player(PlayerBasicDTO playerBasicDTO) {
         super();
@@ -37,5 +49,6 @@ public class Player {
         this.name = playerDTO.getName();
         this.attributes = playerDTO.getAttributes();
         this.isSearchingForMatch = playerDTO.getIsSearchingForMatch();
+        this.searchingSince = Boolean.TRUE.equals(this.isSearchingForMatch) ? Instant.now() : null;
     }
 }
@@ -0,0 +1,25 @@
+package com.learn.matchmaking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "RefreshToken")
+public class RefreshToken {
+
+    @Id
+    private String id;
+    @Indexed(unique = true)
+    private String tokenHash; // SHA-256 of the opaque token, the token itself is never stored
+    private String username;
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt; // MongoDB drops the token once this has passed
+}
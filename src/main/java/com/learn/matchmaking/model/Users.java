@@ -8,6 +8,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,6 +21,8 @@ public class Users {
     @Indexed(unique = true)
     private String username;
     private String password;
+    private List<String> roles; // granted authorities, USER when absent
+    private long version; // bumped on every password or role change, so tokens issued before it can be refused
 
     public Users(UsersDTO user) {
 
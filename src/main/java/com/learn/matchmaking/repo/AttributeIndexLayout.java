@@ -0,0 +1,86 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.model.AttributeEntry;
+import com.learn.matchmaking.model.Player;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps {@code attributeIndex}, the {@link AttributeEntry} copy of a player's attributes, in
+ * step with the attributes map on every write path.
+ */
+final class AttributeIndexLayout {
+
+    static final String FIELD = "attributeIndex";
+    private static final String ATTRIBUTE_PREFIX = "attributes.";
+
+    private AttributeIndexLayout() {
+    }
+
+    static void apply(Player player) {
+
+        player.setAttributeIndex(player.getAttributes() == null ? null : AttributeEntry.of(player.getAttributes()));
+    }
+
+    /**
+     * An update that changes attributes becomes a pipeline update: the same {@code $set} with
+     * literal values, its {@code $unset} fields if any, then {@code attributeIndex} rebuilt from the stored map with
+     * {@code $objectToArray}, which yields exactly the {@code {k, v}} pairs. A pipeline update
+     * that sets attributes gets the rebuild appended as its last stage. Other updates are
+     * returned as they are.
+     */
+    static UpdateDefinition withAttributeIndex(UpdateDefinition update) {
+
+        if (update instanceof AggregationUpdate pipeline) {
+            List<AggregationOperation> stages = new ArrayList<>();
+            boolean setsAttributes = false;
+            for (Document stage : pipeline.toPipeline(Aggregation.DEFAULT_CONTEXT)) {
+                Document set = stage.get("$set", Document.class);
+                setsAttributes |= set != null && set.keySet().stream().anyMatch(key -> key.startsWith(ATTRIBUTE_PREFIX));
+                stages.add(context -> stage);
+            }
+            if (!setsAttributes) {
+                return update;
+            }
+            stages.add(rebuildStage());
+            return AggregationUpdate.from(stages);
+        }
+
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        Document unset = update.getUpdateObject().get("$unset", Document.class);
+        if (set == null || set.keySet().stream().noneMatch(key -> key.startsWith(ATTRIBUTE_PREFIX))
+                || update.getUpdateObject().size() > (unset == null ? 1 : 2)) {
+            return update;
+        }
+
+        Document literalSet = new Document();
+        set.forEach((key, value) -> literalSet.append(key, new Document("$literal", value)));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$set", literalSet));
+        if (unset != null) {
+            stages.add(context -> new Document("$unset", new ArrayList<>(unset.keySet())));
+        }
+        stages.add(rebuildStage());
+        return AggregationUpdate.from(stages);
+    }
+
+    /**
+     * Rebuilds {@code attributeIndex} from the attributes map of the matched documents.
+     */
+    static AggregationUpdate rebuild() {
+
+        return AggregationUpdate.from(List.of(rebuildStage()));
+    }
+
+    private static AggregationOperation rebuildStage() {
+
+        return context -> new Document("$set", new Document(FIELD, new Document("$objectToArray", "$attributes")));
+    }
+}
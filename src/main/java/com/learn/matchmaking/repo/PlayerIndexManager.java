@@ -0,0 +1,126 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.model.Player;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes the matching paths rely on and verifies them at startup:
+ * <ul>
+ *     <li>a partial index on {@code isSearchingForMatch} holding only searching players, which
+ *     serves every pool query while staying as small as the pool;</li>
+ *     <li>with the attribute-pattern layout, a compound index on {@code attributeIndex.k} and
+ *     {@code attributeIndex.v}, so an equality or range filter on any attribute is an index
+ *     scan. Players stored before the layout was enabled are backfilled first.</li>
+ * </ul>
+ * Startup fails when an index is still missing afterwards, e.g. because an index with the
+ * same name but other options already exists.
+ */
+@Component
+public class PlayerIndexManager {
+
+    static final String SEARCHING_INDEX = "searching_players";
+    static final String ATTRIBUTE_INDEX = "attribute_pattern";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final boolean attributeIndexLayout;
+
+    @Autowired
+    public PlayerIndexManager(MongoTemplate mongoTemplate,
+                              @Value("${matchmaking.indexes.manage:true}") boolean enabled,
+                              @Value("${matchmaking.attributes.index-layout:false}") boolean attributeIndexLayout) {
+
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.attributeIndexLayout = attributeIndexLayout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+
+        if (!enabled) {
+            return;
+        }
+        if (attributeIndexLayout) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("attributes").exists(true)
+                            .and(AttributeIndexLayout.FIELD).exists(false)),
+                    AttributeIndexLayout.rebuild(), Player.class);
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Player.class);
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, Index> index : requiredIndexes().entrySet()) {
+            try {
+                indexOps.ensureIndex(index.getValue());
+            } catch (DataAccessException e) {
+                failures.put(index.getKey(), e.getMessage());
+            }
+        }
+
+        List<String> missing = missingIndexes(indexOps.getIndexInfo());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Player indexes " + missing + " could not be created: " + failures);
+        }
+    }
+
+    Map<String, Index> requiredIndexes() {
+
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        indexes.put(SEARCHING_INDEX, new Index()
+                .on("isSearchingForMatch", Sort.Direction.ASC)
+                .named(SEARCHING_INDEX)
+                .partial(PartialIndexFilter.of(new Document("isSearchingForMatch", true))));
+        if (attributeIndexLayout) {
+            indexes.put(ATTRIBUTE_INDEX, new Index()
+                    .on(AttributeIndexLayout.FIELD + ".k", Sort.Direction.ASC)
+                    .on(AttributeIndexLayout.FIELD + ".v", Sort.Direction.ASC)
+                    .named(ATTRIBUTE_INDEX));
+        }
+        return indexes;
+    }
+
+    /**
+     * Required indexes that exist neither under their name nor under another name with the
+     * same keys.
+     */
+    List<String> missingIndexes(List<IndexInfo> existing) {
+
+        Set<String> names = existing.stream()
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet());
+        Set<List<String>> keys = existing.stream()
+                .map(info -> info.getIndexFields().stream().map(IndexField::getKey).toList())
+                .collect(Collectors.toSet());
+
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Index> index : requiredIndexes().entrySet()) {
+            if (!names.contains(index.getKey())
+                    && !keys.contains(List.copyOf(index.getValue().getIndexKeys().keySet()))) {
+                missing.add(index.getKey());
+            }
+        }
+        return missing;
+    }
+}
@@ -1,15 +1,32 @@
 package com.learn.matchmaking.repo;
 
+import com.learn.matchmaking.constant.PlayerConstants;
 import com.learn.matchmaking.model.Player;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PlayerRepository extends MongoRepository<Player, String> {
+public interface PlayerRepository extends MongoRepository<Player, String>, PlayerRepositoryCustom {
 
     Optional<Player> findByName(String name);
     List<Player> findByIsSearchingForMatch(boolean searchingForMatch);
+    List<Player> findAllByOrderByIdAsc(Limit limit);
+    List<Player> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    @Meta(cursorBatchSize = PlayerConstants.STREAM_BATCH_SIZE)
+    Stream<Player> streamAllBy();
+
+    @Query(value = "{ '_id' : { '$in' : ?0 } }", fields = "{ '_id' : 1 }")
+    List<Player> findIdsByIdIn(Collection<String> ids);
+
+    @Query(value = "{ '_id' : { '$in' : ?0 } }", delete = true)
+    long deleteByIdIn(Collection<String> ids);
 }
@@ -0,0 +1,93 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.model.Player;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface PlayerRepositoryCustom {
+
+    /**
+     * Field holding the claim of {@link #claimForMatch(Collection, String)}; a write that sets
+     * {@code isSearchingForMatch} unsets it, so the claim can no longer be released.
+     */
+    String MATCH_CLAIM = "matchClaim";
+
+    /**
+     * Players that were written and names rejected by the unique name index, each in the
+     * order they were given, and the failure of any other write, {@code null} when there
+     * was none.
+     */
+    record InsertResult(List<Player> inserted, List<String> duplicateNames, RuntimeException failure) {
+
+        public InsertResult(List<Player> inserted, List<String> duplicateNames) {
+
+            this(inserted, duplicateNames, null);
+        }
+    }
+
+    /**
+     * Inserts the players with one unordered bulk write: a player whose name is already taken
+     * fails on its own and does not stop the rest of the batch. When a write fails for another
+     * reason, the players written anyway are still returned, together with that failure.
+     */
+    InsertResult insertUnordered(List<Player> players);
+
+    /**
+     * Players searching for a match, reduced to their id, name, {@code searchingSince} and the
+     * given attributes; every other attribute stays in the database.
+     */
+    List<Player> findSearchingPlayers(Collection<String> attributeKeys);
+
+    /**
+     * The given players that are still searching for a match, reduced like
+     * {@link #findSearchingPlayers(Collection)}.
+     */
+    List<Player> findSearchingPlayers(Collection<String> attributeKeys, Collection<String> playerIds);
+
+    /**
+     * Players searching for a match that pass every filter, scored and ordered best first by
+     * the database, reduced like {@link #findSearchingPlayers(Collection)} plus the filtered
+     * attributes; at most {@code limit} of them unless the limit is {@code 0}.
+     */
+    List<Player> findRankedSearchingPlayers(ScoringPlan scoringPlan, List<AttributeFilter> filters, int limit);
+
+    /**
+     * How many queries matched a player, the positions of the updates that can never be
+     * written as they are (a duplicate name or an invalid update) and of those that may be
+     * written when retried, and the failure behind either, {@code null} when there was none.
+     */
+    record UpdateEachResult(long matched, Set<Integer> rejected, Set<Integer> failed, RuntimeException failure) {
+
+        public UpdateEachResult(long matched) {
+
+            this(matched, Set.of(), Set.of(), null);
+        }
+    }
+
+    /**
+     * Applies every update to the first player its query matches, with one unordered bulk
+     * write: an update the database refuses fails on its own and does not stop the rest of
+     * the batch. A failure of the whole write is thrown.
+     */
+    UpdateEachResult updateEach(List<Pair<Query, UpdateDefinition>> updates);
+
+    /**
+     * Takes the given players out of the pool, but only those still searching, and tags each
+     * one it took with {@code claim}. Returns the ids this call took; a player another
+     * instance took first is not among them.
+     */
+    Set<String> claimForMatch(Collection<String> playerIds, String claim);
+
+    /**
+     * Puts players taken by {@link #claimForMatch(Collection, String)} with this claim back
+     * into the pool, unless they were written since.
+     */
+    void releaseMatchClaim(Collection<String> playerIds, String claim);
+}
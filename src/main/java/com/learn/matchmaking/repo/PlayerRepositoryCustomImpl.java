@@ -0,0 +1,195 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.model.Player;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class PlayerRepositoryCustomImpl implements PlayerRepositoryCustom {
+
+    private static final int ID_QUERY_CHUNK_SIZE = 10_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean attributeIndexLayout;
+
+    @Autowired
+    public PlayerRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                      @Value("${matchmaking.attributes.index-layout:false}") boolean attributeIndexLayout) {
+
+        this.mongoTemplate = mongoTemplate;
+        this.attributeIndexLayout = attributeIndexLayout;
+    }
+
+    @Override
+    public InsertResult insertUnordered(List<Player> players) {
+
+        if (players.isEmpty()) {
+            return new InsertResult(List.of(), List.of());
+        }
+
+        // bulk inserts do not write generated ids back to the entities, so assign them here
+        for (Player player : players) {
+            if (player.getId() == null) {
+                player.setId(new ObjectId().toHexString());
+            }
+            if (attributeIndexLayout) {
+                AttributeIndexLayout.apply(player);
+            }
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        Set<Integer> failed = new HashSet<>();
+        BulkOperationException failure = null;
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Player.class)
+                    .insert(players)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                    rejected.add(error.getIndex());
+                } else {
+                    failed.add(error.getIndex());
+                    failure = e;
+                }
+            }
+        }
+
+        List<Player> inserted = new ArrayList<>();
+        List<String> duplicateNames = new ArrayList<>();
+        for (int index = 0; index < players.size(); index++) {
+            if (rejected.contains(index)) {
+                duplicateNames.add(players.get(index).getName());
+            } else if (!failed.contains(index)) {
+                inserted.add(players.get(index));
+            }
+        }
+
+        return new InsertResult(inserted, duplicateNames, failure);
+    }
+
+    @Override
+    public List<Player> findSearchingPlayers(Collection<String> attributeKeys) {
+
+        return mongoTemplate.find(searchingPlayers(Criteria.where("isSearchingForMatch").is(true), attributeKeys),
+                Player.class);
+    }
+
+    @Override
+    public List<Player> findSearchingPlayers(Collection<String> attributeKeys, Collection<String> playerIds) {
+
+        List<String> ids = new ArrayList<>(playerIds);
+        List<Player> players = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += ID_QUERY_CHUNK_SIZE) {
+
+            Criteria criteria = Criteria.where("_id").in(ids.subList(from, Math.min(from + ID_QUERY_CHUNK_SIZE, ids.size())))
+                    .and("isSearchingForMatch").is(true);
+            players.addAll(mongoTemplate.find(searchingPlayers(criteria, attributeKeys), Player.class));
+        }
+
+        return players;
+    }
+
+    private static Query searchingPlayers(Criteria criteria, Collection<String> attributeKeys) {
+
+        Query query = Query.query(criteria);
+        query.fields().include("_id", "name", "searchingSince");
+        for (String attributeKey : attributeKeys) {
+            query.fields().include("attributes." + attributeKey);
+        }
+        return query;
+    }
+
+    @Override
+    public List<Player> findRankedSearchingPlayers(ScoringPlan scoringPlan, List<AttributeFilter> filters, int limit) {
+
+        return mongoTemplate.aggregate(PoolRankingPipeline.build(scoringPlan, filters, limit, attributeIndexLayout),
+                mongoTemplate.getCollectionName(Player.class), Player.class).getMappedResults();
+    }
+
+    @Override
+    public UpdateEachResult updateEach(List<Pair<Query, UpdateDefinition>> updates) {
+
+        if (updates.isEmpty()) {
+            return new UpdateEachResult(0);
+        }
+
+        List<Pair<Query, UpdateDefinition>> writes = !attributeIndexLayout ? updates : updates.stream()
+                .map(update -> Pair.of(update.getFirst(), AttributeIndexLayout.withAttributeIndex(update.getSecond())))
+                .toList();
+
+        try {
+            return new UpdateEachResult(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Player.class)
+                    .updateOne(writes)
+                    .execute()
+                    .getMatchedCount());
+        } catch (BulkOperationException e) {
+            if (e.getErrors().isEmpty()) {
+                // only the write concern failed, so no single update is to blame
+                throw e;
+            }
+            Set<Integer> rejected = new HashSet<>();
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.EXECUTION_TIMEOUT) {
+                    failed.add(error.getIndex());
+                } else {
+                    rejected.add(error.getIndex());
+                }
+            }
+            return new UpdateEachResult(e.getResult().getMatchedCount(), rejected, failed, e);
+        }
+    }
+
+    @Override
+    public Set<String> claimForMatch(Collection<String> playerIds, String claim) {
+
+        if (playerIds.isEmpty()) {
+            return Set.of();
+        }
+
+        Query searching = Query.query(Criteria.where("_id").in(playerIds).and("isSearchingForMatch").is(true));
+        long modified = mongoTemplate.updateMulti(searching,
+                new Update().set("isSearchingForMatch", false).set(MATCH_CLAIM, claim), Player.class)
+                .getModifiedCount();
+        if (modified == playerIds.size()) {
+            return new HashSet<>(playerIds);
+        }
+
+        Query claimed = Query.query(Criteria.where("_id").in(playerIds).and(MATCH_CLAIM).is(claim));
+        claimed.fields().include("_id");
+        return mongoTemplate.find(claimed, Player.class).stream()
+                .map(Player::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public void releaseMatchClaim(Collection<String> playerIds, String claim) {
+
+        if (playerIds.isEmpty()) {
+            return;
+        }
+
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(playerIds).and(MATCH_CLAIM).is(claim)),
+                new Update().set("isSearchingForMatch", true).unset(MATCH_CLAIM), Player.class);
+    }
+}
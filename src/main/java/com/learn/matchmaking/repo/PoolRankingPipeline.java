@@ -0,0 +1,153 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.matching.ScoringPlan;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The weighted similarity of a {@link ScoringPlan} as an aggregation pipeline: searching
+ * players passing the required attribute filters are matched, reduced to the scored fields, scored with {@code $addFields},
+ * sorted best first (ties by {@code _id}) and optionally cut with {@code $limit}.
+ * <p>
+ * The score agrees with {@link ScoringPlan#score(java.util.Map)}, except that a numeric
+ * attribute whose value and target differ while the larger of them is zero scores {@code 0}
+ * instead of a negative infinity, because MongoDB rejects division by zero.
+ */
+public final class PoolRankingPipeline {
+
+    static final String SCORE_FIELD = "_score";
+    private static final String VALUE_VARIABLE = "value";
+
+    private PoolRankingPipeline() {
+    }
+
+    public static Aggregation build(ScoringPlan scoringPlan, int limit) {
+
+        return build(scoringPlan, List.of(), limit);
+    }
+
+    public static Aggregation build(ScoringPlan scoringPlan, List<AttributeFilter> filters, int limit) {
+
+        return build(scoringPlan, filters, limit, false);
+    }
+
+    /**
+     * @param attributeIndexLayout whether players also carry the {@code attributeIndex} array,
+     *                             whose compound index the filters should then use
+     */
+    public static Aggregation build(ScoringPlan scoringPlan, List<AttributeFilter> filters, int limit,
+                                    boolean attributeIndexLayout) {
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(stage("$match", match(filters, attributeIndexLayout)));
+
+        Document projection = new Document("name", 1).append("searchingSince", 1);
+        for (String attributeKey : scoringPlan.attributeKeys()) {
+            projection.append("attributes." + attributeKey, 1);
+        }
+        for (AttributeFilter filter : filters) {
+            projection.putIfAbsent("attributes." + filter.getAttribute(), 1);
+        }
+        stages.add(stage("$project", projection));
+
+        stages.add(stage("$addFields", new Document(SCORE_FIELD, scoreExpression(scoringPlan))));
+        stages.add(stage("$sort", new Document(SCORE_FIELD, -1).append("_id", 1)));
+        if (limit > 0) {
+            stages.add(stage("$limit", limit));
+        }
+        stages.add(stage("$project", new Document(SCORE_FIELD, 0)));
+
+        return Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+    }
+
+    /**
+     * Values of one filter are matched with {@code $in}, its bounds with {@code $gte} and
+     * {@code $lte}; the filters of a request all have to hold. In the attribute index layout
+     * each filter is an {@code $elemMatch} on one {@code {k, v}} entry, so the compound index on
+     * {@code k} and {@code v} can serve it and both bounds apply to the same value.
+     */
+    static Document match(List<AttributeFilter> filters, boolean attributeIndexLayout) {
+
+        List<Document> conditions = new ArrayList<>();
+        conditions.add(new Document("isSearchingForMatch", true));
+        for (AttributeFilter filter : filters) {
+
+            Document condition = new Document();
+            if (filter.getAnyOf() != null && !filter.getAnyOf().isEmpty()) {
+                condition.append("$in", filter.getAnyOf());
+            }
+            if (filter.getMin() != null) {
+                condition.append("$gte", filter.getMin());
+            }
+            if (filter.getMax() != null) {
+                condition.append("$lte", filter.getMax());
+            }
+            if (attributeIndexLayout) {
+                conditions.add(new Document(AttributeIndexLayout.FIELD, new Document("$elemMatch",
+                        new Document("k", filter.getAttribute()).append("v", condition))));
+            } else {
+                conditions.add(new Document("attributes." + filter.getAttribute(), condition));
+            }
+        }
+
+        return conditions.size() == 1 ? conditions.get(0) : new Document("$and", conditions);
+    }
+
+    static Object scoreExpression(ScoringPlan scoringPlan) {
+
+        if (scoringPlan.totalWeight() <= 0) {
+            return 0;
+        }
+
+        List<Object> terms = new ArrayList<>();
+        for (String attributeKey : scoringPlan.attributeKeys()) {
+
+            String field = "$attributes." + attributeKey;
+            double weight = scoringPlan.weight(attributeKey);
+            Double numericTarget = scoringPlan.numericTarget(attributeKey);
+            if (numericTarget != null) {
+                terms.add(new Document("$multiply", List.of(numericSimilarity(field, numericTarget), weight)));
+            } else {
+                terms.add(new Document("$cond", List.of(
+                        new Document("$eq", List.of(field, new Document("$literal", scoringPlan.target(attributeKey)))),
+                        weight,
+                        0)));
+            }
+        }
+
+        return new Document("$divide", List.of(new Document("$add", terms), scoringPlan.totalWeight()));
+    }
+
+    /**
+     * {@code 1 - |value - target| / max(value, target)}, {@code 1} for an exact match and
+     * {@code 0} when the attribute is missing or not a number.
+     */
+    private static Document numericSimilarity(String field, double target) {
+
+        String value = "$$" + VALUE_VARIABLE;
+        Document max = new Document("$max", List.of(value, target));
+        Document similarity = new Document("$subtract", List.of(1, new Document("$divide", List.of(
+                new Document("$abs", new Document("$subtract", List.of(value, target))), max))));
+
+        return new Document("$let", new Document("vars", new Document(VALUE_VARIABLE, field))
+                .append("in", new Document("$cond", List.of(
+                        new Document("$isNumber", value),
+                        new Document("$cond", List.of(
+                                new Document("$eq", List.of(value, target)),
+                                1,
+                                new Document("$cond", List.of(new Document("$eq", List.of(max, 0)), 0, similarity)))),
+                        0))));
+    }
+
+    private static AggregationOperation stage(String operator, Object body) {
+
+        return context -> new Document(operator, body);
+    }
+}
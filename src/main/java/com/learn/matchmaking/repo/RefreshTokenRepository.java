@@ -0,0 +1,21 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.model.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Deletes the token and returns how many were deleted; of concurrent callers presenting
+     * the same token, only one sees {@code 1}.
+     */
+    @Query(value = "{ 'tokenHash' : ?0 }", delete = true)
+    long deleteByTokenHash(String tokenHash);
+}
@@ -2,6 +2,8 @@ package com.learn.matchmaking.repo;
 
 import com.learn.matchmaking.model.Users;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +12,12 @@ import java.util.Optional;
 public interface UserRepository extends MongoRepository<Users, String> {
 
     Optional<Users> findByUsername(String name);
+
+    /**
+     * Replaces the password hash only while the stored one is still {@code currentPassword},
+     * so it cannot overwrite a password changed in the meantime; returns how many users changed.
+     */
+    @Query("{ 'username' : ?0, 'password' : ?1 }")
+    @Update("{ '$set' : { 'password' : ?2 } }")
+    long updatePassword(String username, String currentPassword, String newPassword);
 }
@@ -0,0 +1,153 @@
+package com.learn.matchmaking.service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache whose entries expire at a time given when they are stored. Reads take no
+ * lock: each entry only records when it was last read. Once full, a put evicts the expired
+ * entries and then the least recently read ones, plus a sixteenth of the capacity as slack so
+ * the next puts do not have to scan the entries again; eviction order is therefore close to
+ * LRU rather than exact. Hits, misses and evictions (by size or expiry) are counted for
+ * metrics.
+ */
+public final class ExpiringLruCache<K, V> {
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+        private volatile long lastRead = System.nanoTime();
+
+        private Entry(V value, long expiresAt) {
+
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private record Candidate<K, V>(K key, Entry<V> entry, long lastRead) {
+    }
+
+    private final int maxSize;
+    private final Clock clock;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringLruCache(int maxSize, Clock clock) {
+
+        this.maxSize = Math.max(maxSize, 0);
+        this.clock = clock;
+    }
+
+    /**
+     * The value stored for the key, or {@code null} when there is none or it has expired.
+     */
+    public V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.millis()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.lastRead = System.nanoTime();
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Stores the value until {@code expiresAt} (epoch milliseconds); values that have already
+     * expired are not stored.
+     */
+    public void put(K key, V value, long expiresAt) {
+
+        long now = clock.millis();
+        if (maxSize == 0 || expiresAt <= now) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+        if (entries.size() > maxSize) {
+            evict(now);
+        }
+    }
+
+    public void invalidate(K key) {
+
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+
+        entries.clear();
+    }
+
+    public int size() {
+
+        return entries.size();
+    }
+
+    public long hits() {
+
+        return hits.sum();
+    }
+
+    public long misses() {
+
+        return misses.sum();
+    }
+
+    public long evictions() {
+
+        return evictions.sum();
+    }
+
+    private void evict(long now) {
+
+        synchronized (evictionLock) {
+            if (entries.size() <= maxSize) {
+                return;
+            }
+            List<Candidate<K, V>> live = new ArrayList<>(entries.size());
+            for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+                Candidate<K, V> candidate = new Candidate<>(entry.getKey(), entry.getValue(),
+                        entry.getValue().lastRead);
+                if (candidate.entry().expiresAt <= now) {
+                    remove(candidate);
+                } else {
+                    live.add(candidate);
+                }
+            }
+            int excess = live.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            // sorted on the read time seen above, as concurrent reads keep moving lastRead
+            live.sort(Comparator.comparingLong(Candidate::lastRead));
+            int toEvict = Math.min(live.size(), excess + maxSize / 16);
+            for (int i = 0; i < toEvict; i++) {
+                remove(live.get(i));
+            }
+        }
+    }
+
+    private void remove(Candidate<K, V> candidate) {
+
+        if (entries.remove(candidate.key(), candidate.entry())) {
+            evictions.increment();
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package com.learn.matchmaking.service;
 
+import com.learn.matchmaking.model.MyUserDetails;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import java.security.Key;
+import java.time.Clock;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Service
 public class JWTService {
 
+    static final String AUTHORITIES_CLAIM = "authorities";
+    static final String VERSION_CLAIM = "ver";
+
     private SecretKey secretKey;
+    private final ExpiringLruCache<String, Claims> verifiedTokens;
 
-    public JWTService() {
+    /**
+     * @param verifiedTokenCacheSize most verified tokens kept, keyed by their SHA-256 digest,
+     *                               so a reused token is parsed and verified once
+     */
+    @Autowired
+    public JWTService(@Value("${matchmaking.jwt.verified-cache-size:10000}") int verifiedTokenCacheSize) {
 
+        this.verifiedTokens = new ExpiringLruCache<>(verifiedTokenCacheSize, Clock.systemUTC());
         try {
             KeyGenerator keyGenerator = KeyGenerator.getInstance("HmacSHA256");
             secretKey = keyGenerator.generateKey();
@@ -32,7 +53,27 @@ public class JWTService {
 
     public String generateToken(String username) {
 
+        return generateToken(username, new HashMap<String, Object>());
+    }
+
+    /**
+     * A token that also carries the authorities and the user version of the authenticated
+     * user, so requests can be authenticated from the token without loading the user.
+     */
+    public String generateToken(Authentication authentication) {
+
         Map<String, Object> claims = new HashMap<String, Object>();
+        claims.put(AUTHORITIES_CLAIM, authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        if (authentication.getPrincipal() instanceof MyUserDetails userDetails) {
+            claims.put(VERSION_CLAIM, userDetails.getVersion());
+        }
+
+        return generateToken(authentication.getName(), claims);
+    }
+
+    private String generateToken(String username, Map<String, Object> claims) {
 
         return Jwts.builder()
                 .claims()
@@ -70,20 +111,68 @@ public class JWTService {
                 .getPayload();
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
+    /**
+     * Parses and verifies the token once, or takes its claims from the verified-token cache,
+     * where they stay until the token expires.
+     *
+     * @return the claims of a correctly signed, unexpired token, otherwise empty
+     */
+    public Optional<Claims> verify(String token) {
+
+        String digest = TokenHashes.sha256(token);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims != null) {
+            return Optional.of(claims);
+        }
 
-        final String username = extractUsername(token);
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return Optional.of(claims);
+    }
+
+    /**
+     * The user described by verified claims, or empty for a token that carries no
+     * authorities, whose user has to be loaded instead.
+     */
+    public Optional<UserDetails> principalFrom(Claims claims) {
 
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        if (!(claims.get(AUTHORITIES_CLAIM) instanceof List<?> authorities)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(authorities.stream()
+                        .map(authority -> new SimpleGrantedAuthority(String.valueOf(authority)))
+                        .toList())
+                .build());
     }
 
-    private boolean isTokenExpired(String token) {
+    /**
+     * Checks verified claims against the user, without parsing the token again. A token that
+     * carries a user version is refused once the stored user has moved past it.
+     */
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
 
-        return extractExpiration(token).before(new Date());
+        if (userDetails instanceof MyUserDetails myUserDetails && claims.get(VERSION_CLAIM) instanceof Number version
+                && version.longValue() != myUserDetails.getVersion()) {
+            return false;
+        }
+
+        return userDetails.getUsername().equals(claims.getSubject())
+                && (claims.getExpiration() == null || claims.getExpiration().after(new Date()));
     }
 
-    private Date extractExpiration(String token) {
+    public boolean validateToken(String token, UserDetails userDetails) {
 
-        return extractClaims(token, Claims::getExpiration);
+        return verify(token)
+                .map(claims -> validateToken(claims, userDetails))
+                .orElse(false);
     }
 }
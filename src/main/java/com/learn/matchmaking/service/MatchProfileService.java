@@ -0,0 +1,187 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.dto.MatchProfile;
+import com.learn.matchmaking.dto.MatchResponse;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
+import com.learn.matchmaking.matching.GroupFormation;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.RankedPool;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class MatchProfileService {
+
+    private final PlayerRepository playerRepo;
+    private final PlayerReservations reservations;
+    private final Map<String, RegisteredProfile> profiles = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MatchProfileService(PlayerRepository playerRepo, PlayerReservations reservations) {
+
+        this.playerRepo = playerRepo;
+        this.reservations = reservations;
+    }
+
+    public String registerProfile(MatchProfile profile) {
+
+        if (!isValid(profile)) {
+
+            return MatchConstants.PROFILE_INVALID_MESSAGE;
+        }
+
+        RegisteredProfile registered = new RegisteredProfile(profile,
+                new RankedPool(ScoringPlan.compile(profile.toMatchRequest())), new Seeding());
+        profiles.put(profile.getName(), registered);
+
+        // Events that arrive while seeding are newer than the seed snapshot, upserts and
+        // removals alike, so the snapshot skips every player they touched.
+        for (Player player : playerRepo.findByIsSearchingForMatch(true)) {
+            synchronized (registered.seeding()) {
+                if (!registered.seeding().touched().contains(player.getId())) {
+                    registered.pool().addIfAbsent(new PlayerBasicDTO(player));
+                }
+            }
+        }
+        registered.seeding().finish();
+
+        return MatchConstants.PROFILE_REGISTRATION_SUCCESSFUL_MESSAGE;
+    }
+
+    public List<MatchProfile> getProfiles() {
+
+        return profiles.values().stream()
+                .map(RegisteredProfile::profile)
+                .toList();
+    }
+
+    public String deleteProfile(String name) {
+
+        if (profiles.remove(name) == null) {
+
+            return String.format(MatchConstants.PROFILE_NOT_FOUND_MESSAGE, name);
+        }
+
+        return MatchConstants.PROFILE_DELETION_SUCCESSFUL_MESSAGE;
+    }
+
+    public MatchResponse getGroupsFromProfile(String name) {
+
+        RegisteredProfile registered = profiles.get(name);
+        if (registered == null) {
+
+            return new MatchResponse(new ArrayList<>(), String.format(MatchConstants.PROFILE_NOT_FOUND_MESSAGE, name));
+        }
+
+        long epoch = reservations.newEpoch();
+        List<PlayerBasicDTO> rankedPlayers = registered.pool().ranked().stream()
+                .filter(player -> reservations.claim(player.getId(), epoch))
+                .toList();
+        int groupSize = registered.profile().getGroupSize();
+
+        if (rankedPlayers.size() <= 1 && groupSize >= rankedPlayers.size()) {
+
+            reservations.releaseAll(rankedPlayers.stream().map(PlayerBasicDTO::getId).toList(), epoch);
+            return new MatchResponse(new ArrayList<>(), MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
+        }
+
+        List<List<PlayerBasicDTO>> matchGroups = GroupFormation.form(rankedPlayers.size(), groupSize,
+                registered.profile().isMatchTypeFair(), rankedPlayers::get);
+
+        return new MatchResponse(matchGroups, MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+    }
+
+    @EventListener
+    public void onPlayersUpdated(PlayersUpdatedEvent event) {
+
+        if (profiles.isEmpty()) {
+            return;
+        }
+        onPlayersChanged(event.asChangedEvent());
+    }
+
+    @EventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+
+        if (profiles.isEmpty()) {
+            return;
+        }
+
+        for (RegisteredProfile registered : profiles.values()) {
+
+            if (registered.seeding().isFinished()) {
+                apply(registered, event);
+            } else {
+                synchronized (registered.seeding()) {
+                    event.savedPlayers().forEach(player -> registered.seeding().touched().add(player.getId()));
+                    registered.seeding().touched().addAll(event.deletedPlayerIds());
+                    apply(registered, event);
+                }
+            }
+        }
+    }
+
+    private static void apply(RegisteredProfile registered, PlayersChangedEvent event) {
+
+        for (Player player : event.savedPlayers()) {
+            if (Boolean.TRUE.equals(player.getIsSearchingForMatch())) {
+                registered.pool().upsert(new PlayerBasicDTO(player));
+            } else {
+                registered.pool().remove(player.getId());
+            }
+        }
+        for (String playerId : event.deletedPlayerIds()) {
+            registered.pool().remove(playerId);
+        }
+    }
+
+    private boolean isValid(MatchProfile profile) {
+
+        return profile.getName() != null && !profile.getName().isBlank()
+                && profile.getTargetAttributes() != null && !profile.getTargetAttributes().isEmpty()
+                && profile.getAttributeWeights() != null
+                && profile.getTargetAttributes().keySet().stream()
+                        .allMatch(key -> profile.getAttributeWeights().get(key) != null)
+                && profile.getGroupSize() > 0;
+    }
+
+    private record RegisteredProfile(MatchProfile profile, RankedPool pool, Seeding seeding) {
+    }
+
+    /**
+     * Ids changed by events while a profile's pool is seeded; guarded by its own monitor
+     * until {@link #finish()}.
+     */
+    private static final class Seeding {
+
+        private final Set<String> touched = new HashSet<>();
+        private volatile boolean finished;
+
+        Set<String> touched() {
+            return touched;
+        }
+
+        boolean isFinished() {
+            return finished;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            touched.clear();
+        }
+    }
+}
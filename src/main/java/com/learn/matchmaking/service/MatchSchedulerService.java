@@ -0,0 +1,290 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.dto.MatchProfile;
+import com.learn.matchmaking.dto.MatchResponse;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
+import com.learn.matchmaking.matching.GroupFormation;
+import com.learn.matchmaking.matching.PlayerColumns;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.ScoringEngine;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Background matchmaking loop. Players that start searching are queued for every registered
+ * profile; once per tick each profile ranks its queue, forms complete groups with the
+ * profile's unfair/fair strategy, and the matched players are taken out of the pool with one
+ * bulk update that only takes players still searching. Players claimed by a concurrent pool
+ * match are left queued, and a group is only kept if all its players can be claimed here and
+ * taken out of the pool, so a player taken by another instance's scheduler is grouped once.
+ * Groups are kept per profile until a game server fetches them.
+ */
+@Service
+public class MatchSchedulerService {
+
+    private final PlayerRepository playerRepo;
+    private final MatchProfileService matchProfileService;
+    private final ScoringEngine scoringEngine;
+    private final PlayerReservations reservations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int maxPendingResults;
+
+    private final Queue<PoolChange> changes = new ConcurrentLinkedQueue<>();
+    private final Map<String, Player> searching = new LinkedHashMap<>();
+    private final Map<String, LinkedHashMap<String, Player>> profileQueues = new HashMap<>();
+    private final Map<String, Deque<List<PlayerBasicDTO>>> results = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MatchSchedulerService(PlayerRepository playerRepo, MatchProfileService matchProfileService,
+                                 ScoringEngine scoringEngine, PlayerReservations reservations,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${matchmaking.scheduler.enabled:false}") boolean enabled,
+                                 @Value("${matchmaking.scheduler.max-pending-results:10000}") int maxPendingResults) {
+
+        this.playerRepo = playerRepo;
+        this.matchProfileService = matchProfileService;
+        this.scoringEngine = scoringEngine;
+        this.reservations = reservations;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxPendingResults = maxPendingResults;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedQueues() {
+
+        if (enabled) {
+            playerRepo.findByIsSearchingForMatch(true).forEach(player -> changes.add(PoolChange.arrival(player)));
+        }
+    }
+
+    @EventListener
+    public void onPlayersUpdated(PlayersUpdatedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+        onPlayersChanged(event.asChangedEvent());
+    }
+
+    @EventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+        for (Player player : event.savedPlayers()) {
+            if (Boolean.TRUE.equals(player.getIsSearchingForMatch())) {
+                changes.add(PoolChange.arrival(player));
+            } else {
+                changes.add(PoolChange.departure(player.getId()));
+            }
+        }
+        event.deletedPlayerIds().forEach(playerId -> changes.add(PoolChange.departure(playerId)));
+    }
+
+    @Scheduled(fixedDelayString = "${matchmaking.scheduler.tick-interval:1000}")
+    public void scheduledTick() {
+
+        if (enabled) {
+            tick();
+        }
+    }
+
+    synchronized void tick() {
+
+        List<MatchProfile> profiles = matchProfileService.getProfiles();
+        drainQueues(profiles);
+        long epoch = reservations.newEpoch();
+
+        Map<String, Player> matchedPlayers = new LinkedHashMap<>();
+        Map<String, List<List<PlayerBasicDTO>>> groupsByProfile = new LinkedHashMap<>();
+        Set<String> claimedIds = new HashSet<>();
+
+        try {
+
+            for (MatchProfile profile : profiles) {
+
+                List<Player> queued = profileQueues.get(profile.getName()).values().stream()
+                        .filter(player -> !matchedPlayers.containsKey(player.getId()))
+                        .filter(player -> !reservations.isClaimed(player.getId()))
+                        .toList();
+                if (queued.size() < profile.getGroupSize()) {
+                    continue;
+                }
+
+                ScoringPlan scoringPlan = ScoringPlan.compile(profile.toMatchRequest());
+                PlayerColumns columns = PlayerColumns.of(queued, scoringPlan.attributeKeys());
+                int[] order = scoringEngine.rank(scoringPlan, columns);
+
+                List<List<Integer>> groups = GroupFormation.form(order.length, profile.getGroupSize(),
+                        profile.isMatchTypeFair(), rank -> order[rank]);
+                List<List<PlayerBasicDTO>> completeGroups = new ArrayList<>();
+                for (List<Integer> group : groups) {
+                    if (group.size() == profile.getGroupSize() && claimAll(group, queued, epoch)) {
+                        completeGroups.add(group.stream().map(columns::player).toList());
+                        group.forEach(row -> matchedPlayers.put(queued.get(row).getId(), queued.get(row)));
+                        group.forEach(row -> claimedIds.add(queued.get(row).getId()));
+                    }
+                }
+                if (!completeGroups.isEmpty()) {
+                    groupsByProfile.put(profile.getName(), completeGroups);
+                }
+            }
+
+            if (matchedPlayers.isEmpty()) {
+                return;
+            }
+
+            String claim = UUID.randomUUID().toString();
+            Set<String> taken = playerRepo.claimForMatch(claimedIds, claim);
+            Set<String> leaving = new HashSet<>(claimedIds);
+            if (taken.size() < matchedPlayers.size()) {
+                leaving.removeAll(keepFullyTakenGroups(groupsByProfile, matchedPlayers, taken, claim));
+            }
+
+            removeFromQueues(leaving);
+            groupsByProfile.forEach(this::publishGroups);
+
+            if (!matchedPlayers.isEmpty()) {
+                eventPublisher.publishEvent(PlayersChangedEvent.saved(matchedPlayers.values().stream()
+                        .map(player -> new Player(player.getId(), player.getName(), player.getAttributes(), false))
+                        .toList()));
+            }
+        } finally {
+            reservations.releaseAll(claimedIds, epoch);
+        }
+    }
+
+    public MatchResponse takeResults(String profileName, int limit) {
+
+        List<List<PlayerBasicDTO>> groups = new ArrayList<>();
+        Deque<List<PlayerBasicDTO>> pending = results.get(profileName);
+
+        if (pending != null) {
+            synchronized (pending) {
+                while (!pending.isEmpty() && groups.size() < limit) {
+                    groups.add(pending.pollFirst());
+                }
+            }
+        }
+
+        return new MatchResponse(groups, String.format(MatchConstants.SCHEDULED_RESULTS_MESSAGE, profileName));
+    }
+
+    private boolean claimAll(List<Integer> group, List<Player> queued, long epoch) {
+
+        for (int i = 0; i < group.size(); i++) {
+            if (!reservations.claim(queued.get(group.get(i)).getId(), epoch)) {
+                for (int j = 0; j < i; j++) {
+                    reservations.release(queued.get(group.get(j)).getId(), epoch);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Another instance took some of the matched players first. Only groups whose players were
+     * all taken by this tick are kept; the players taken for the other groups are put back.
+     * Players this tick did not get stop searching, so they leave the queues like the matched
+     * ones; the players put back are returned and stay queued.
+     */
+    private List<String> keepFullyTakenGroups(Map<String, List<List<PlayerBasicDTO>>> groupsByProfile,
+                                      Map<String, Player> matchedPlayers, Set<String> taken, String claim) {
+
+        List<String> putBack = new ArrayList<>();
+        for (List<List<PlayerBasicDTO>> groups : groupsByProfile.values()) {
+            groups.removeIf(group -> {
+                if (group.stream().allMatch(player -> taken.contains(player.getId()))) {
+                    return false;
+                }
+                group.stream().map(PlayerBasicDTO::getId).filter(taken::contains).forEach(putBack::add);
+                return true;
+            });
+        }
+        groupsByProfile.values().removeIf(List::isEmpty);
+
+        playerRepo.releaseMatchClaim(putBack, claim);
+        matchedPlayers.keySet().retainAll(taken);
+        putBack.forEach(matchedPlayers.keySet()::remove);
+
+        return putBack;
+    }
+
+    private void drainQueues(List<MatchProfile> profiles) {
+
+        Set<String> profileNames = new HashSet<>();
+        for (MatchProfile profile : profiles) {
+            profileNames.add(profile.getName());
+            profileQueues.computeIfAbsent(profile.getName(), name -> new LinkedHashMap<>(searching));
+        }
+        profileQueues.keySet().retainAll(profileNames);
+        results.keySet().retainAll(profileNames);
+
+        // applied in the order they were published, so a later arrival wins over an earlier departure
+        for (PoolChange change = changes.poll(); change != null; change = changes.poll()) {
+            if (change.player() != null) {
+                searching.put(change.playerId(), change.player());
+                for (LinkedHashMap<String, Player> queue : profileQueues.values()) {
+                    queue.put(change.playerId(), change.player());
+                }
+            } else {
+                removeFromQueues(Set.of(change.playerId()));
+            }
+        }
+    }
+
+    private void removeFromQueues(Set<String> playerIds) {
+
+        if (playerIds.isEmpty()) {
+            return;
+        }
+        searching.keySet().removeAll(playerIds);
+        for (LinkedHashMap<String, Player> queue : profileQueues.values()) {
+            queue.keySet().removeAll(playerIds);
+        }
+    }
+
+    private void publishGroups(String profileName, List<List<PlayerBasicDTO>> groups) {
+
+        Deque<List<PlayerBasicDTO>> pending = results.computeIfAbsent(profileName, name -> new ArrayDeque<>());
+        synchronized (pending) {
+            pending.addAll(groups);
+            while (pending.size() > maxPendingResults) {
+                pending.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * A player that started searching, or the id of one that stopped when {@code player} is null.
+     */
+    private record PoolChange(String playerId, Player player) {
+
+        static PoolChange arrival(Player player) {
+            return new PoolChange(player.getId(), player);
+        }
+
+        static PoolChange departure(String playerId) {
+            return new PoolChange(playerId, null);
+        }
+    }
+}
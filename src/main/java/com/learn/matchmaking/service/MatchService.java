@@ -1,159 +1,288 @@
 package com.learn.matchmaking.service;
 
 import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.constant.MetricConstants;
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.dto.MatchEngine;
 import com.learn.matchmaking.dto.MatchRequest;
 import com.learn.matchmaking.dto.MatchResponse;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
-import com.learn.matchmaking.exception.PlayerNotFoundException;
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.matching.AggregationGroupingEngine;
+import com.learn.matchmaking.matching.AttributeFilters;
+import com.learn.matchmaking.matching.GroupingEngine;
+import com.learn.matchmaking.matching.PlayerColumns;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.matching.SingleFlight;
 import com.learn.matchmaking.model.Player;
 import com.learn.matchmaking.repo.PlayerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @Service
 public class MatchService {
 
     private final PlayerRepository playerRepo;
+    private final PlayerResolver playerResolver;
+    private final PlayerFilterIndexService filterIndex;
+    private final PlayerService playerService;
+    private final Map<MatchEngine, GroupingEngine> groupingEngines = new EnumMap<>(MatchEngine.class);
+    private final PlayerReservations reservations;
+    private final MetricsService metricsService;
+    private final SingleFlight<PoolRequestKey, MatchResponse> poolFlights;
 
     @Autowired
-    public MatchService(PlayerRepository playerRepo) {
+    public MatchService(PlayerRepository playerRepo, PlayerResolver playerResolver, PlayerFilterIndexService filterIndex,
+                        PlayerService playerService, List<GroupingEngine> groupingEngines, PlayerReservations reservations,
+                        MetricsService metricsService,
+                        @Value("${matchmaking.coalescing.enabled:true}") boolean coalescingEnabled) {
 
         this.playerRepo = playerRepo;
+        this.playerResolver = playerResolver;
+        this.filterIndex = filterIndex;
+        this.playerService = playerService;
+        groupingEngines.forEach(groupingEngine -> this.groupingEngines.put(groupingEngine.engine(), groupingEngine));
+        this.reservations = reservations;
+        this.metricsService = metricsService;
+        this.poolFlights = coalescingEnabled ? new SingleFlight<>() : null;
     }
 
+    /**
+     * Identical requests that arrive while a pool match is running are coalesced into
+     * it: the pool is read and grouped once, and the groups are dealt round-robin between the
+     * coalesced callers, so each group is still handed out once.
+     */
     public MatchResponse getGroupsFromPool(MatchRequest matchRequest) {
 
-        List<PlayerBasicDTO> searchingPlayers = playerRepo.findByIsSearchingForMatch(true)
-                .stream().map(PlayerBasicDTO::new)
-                .collect(Collectors.toCollection(ArrayList::new));
+        metricsService.increment(MetricConstants.POOL_REQUESTS);
+        if (poolFlights == null) {
 
-        int activePlayersCount = searchingPlayers.size();
+            return matchFromPool(matchRequest);
+        }
 
-        if(activePlayersCount <= 1 && matchRequest.getGroupSize() >= activePlayersCount) {
+        SingleFlight.Share<MatchResponse> share = poolFlights.execute(PoolRequestKey.of(matchRequest),
+                () -> matchFromPool(matchRequest));
+        if (!share.isLeader()) {
 
-            return new MatchResponse(new ArrayList<>(), MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
+            metricsService.increment(MetricConstants.POOL_COALESCED);
         }
+        if (share.participants() == 1) {
 
-        return createMatchGroups(searchingPlayers, matchRequest);
-    }
-
-    public MatchResponse getGroupsFromCustomIds(MatchRequest matchRequest) {
+            return share.value();
+        }
 
-        List<String> customPlayerIds = matchRequest.getPlayerIds();
-        if(customPlayerIds == null) {
+        List<List<PlayerBasicDTO>> groups = share.value().getGroups();
+        List<List<PlayerBasicDTO>> dealtGroups = new ArrayList<>();
+        for (int group = share.seat(); group < groups.size(); group += share.participants()) {
+            dealtGroups.add(groups.get(group));
+        }
+        if (dealtGroups.isEmpty() && !groups.isEmpty()) {
 
-            return new MatchResponse(new ArrayList<>(), MatchConstants.MATCH_PLAYER_IDS_MANDATORY_MESSAGE);
+            return new MatchResponse(dealtGroups, MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
         }
-        List<PlayerBasicDTO> customPlayersDetails = new ArrayList<>();
 
-        for(String customPlayerId : customPlayerIds) {
+        return new MatchResponse(dealtGroups, share.value().getMessage());
+    }
 
-            try {
+    /**
+     * Players are claimed before they are grouped, so concurrent pool matches never hand out the
+     * same player twice. Players placed in a group stay claimed until the reservation expires,
+     * giving the caller time to switch their searching flag off; everyone else is released.
+     * Players failing a required attribute are dropped before they are claimed. Buffered
+     * player updates are applied to the loaded pool rather than flushed first, so a match never
+     * waits for a write.
+     */
+    private MatchResponse matchFromPool(MatchRequest matchRequest) {
+
+        metricsService.increment(MetricConstants.POOL_COMPUTATIONS);
+        String filterMessage = AttributeFilters.validate(matchRequest.getRequiredAttributes());
+        if (filterMessage != null) {
+
+            return new MatchResponse(new ArrayList<>(), filterMessage);
+        }
 
-                Optional<Player> player = playerRepo.findById(customPlayerId);
-                if (player.isEmpty()) {
-                    throw new PlayerNotFoundException("Player with ID " + customPlayerId + " not found");
-                }
-                customPlayersDetails.add(new PlayerBasicDTO(player.get()));
+        long epoch = reservations.newEpoch();
+        List<Player> searchingPlayers = loadPool(matchRequest).stream()
+                .filter(player -> AttributeFilters.matches(matchRequest.getRequiredAttributes(), player.getAttributes()))
+                .filter(player -> reservations.claim(player.getId(), epoch))
+                .toList();
+        Set<String> unplacedPlayerIds = new HashSet<>();
+        searchingPlayers.forEach(player -> unplacedPlayerIds.add(player.getId()));
 
-            }  catch (Exception e) {
+        try {
 
-                return new MatchResponse(new ArrayList<>(), e.getMessage());
+            int activePlayersCount = searchingPlayers.size();
 
+            if(activePlayersCount <= 1 && matchRequest.getGroupSize() >= activePlayersCount) {
+
+                return new MatchResponse(new ArrayList<>(), MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
             }
-        }
 
-        return createMatchGroups(customPlayersDetails, matchRequest);
+            MatchResponse response = createMatchGroups(searchingPlayers, matchRequest);
+            response.getGroups().forEach(group -> group.forEach(player -> unplacedPlayerIds.remove(player.getId())));
+
+            return response;
+        } finally {
+
+            reservations.releaseAll(unplacedPlayerIds, epoch);
+        }
     }
 
-    private MatchResponse createMatchGroups(List<PlayerBasicDTO> players, MatchRequest matchRequest) {
+    /**
+     * With required attributes, the filter index narrows the pool to its candidates before
+     * anything is read; the index may trail the database, so the loaded players are still
+     * checked against the filters. Buffered updates are applied to what was loaded, and the
+     * players whose buffered update starts their search, or changes a filtered attribute the
+     * index has not seen yet, are loaded as well. The aggregation engine ranks and cuts the
+     * pool in the database, so it only sees buffered updates of the players it returned.
+     */
+    private List<Player> loadPool(MatchRequest matchRequest) {
+
+        List<AttributeFilter> filters = Optional.ofNullable(matchRequest.getRequiredAttributes()).orElse(List.of());
+        if (groupingEngines.get(engineOf(matchRequest)) instanceof AggregationGroupingEngine aggregation) {
+
+            return playerService.withBufferedUpdates(playerRepo.findRankedSearchingPlayers(
+                    ScoringPlan.compile(matchRequest), filters, aggregation.poolLimit()), update -> false);
+        }
 
-        int groupSize = matchRequest.getGroupSize();
-        List<List<PlayerBasicDTO>> matchGroups = new ArrayList<>();
-        List<PlayerBasicDTO> currentGroup = new ArrayList<>();
+        Predicate<PlayerDTO> startsSearching = update -> Boolean.TRUE.equals(update.getIsSearchingForMatch());
+        Optional<List<String>> candidateIds = filters.isEmpty() ? Optional.empty() : filterIndex.candidates(filters);
+        if (candidateIds.isPresent()) {
 
-        players.sort((p1,p2) -> Double.compare(
-                calculateScoreForPlayer(p2, matchRequest),
-                calculateScoreForPlayer(p1, matchRequest)
-        ));
+            List<Player> candidates = candidateIds.get().isEmpty()
+                    ? List.of()
+                    : playerRepo.findSearchingPlayers(scoredAttributeKeys(matchRequest), candidateIds.get());
+            return playerService.withBufferedUpdates(candidates, startsSearching.or(update -> update.getAttributes() != null
+                    && filters.stream().anyMatch(filter -> update.getAttributes().containsKey(filter.getAttribute()))));
+        }
 
-        if(!matchRequest.isMatchTypeFair()) {
+        return playerService.withBufferedUpdates(playerRepo.findSearchingPlayers(scoredAttributeKeys(matchRequest)),
+                startsSearching);
+    }
 
-            for (PlayerBasicDTO player : players) {
+    private static MatchEngine engineOf(MatchRequest matchRequest) {
 
-                currentGroup.add(player);
-                if (currentGroup.size() == groupSize) {
-                    matchGroups.add(new ArrayList<>(currentGroup));
-                    currentGroup.clear();
-                }
-            }
-            if (!currentGroup.isEmpty()) {
+        return Optional.ofNullable(matchRequest.getEngine()).orElse(MatchEngine.SORTED);
+    }
 
-                matchGroups.add(new ArrayList<>(currentGroup));
-                currentGroup.clear();
-            }
-            System.out.println(matchGroups);
-        } else {
+    /**
+     * The attributes a pool request reads: its targets, the bucketing attribute and the
+     * required attributes. Only these are loaded, so the players in the resulting groups carry
+     * just these attributes.
+     */
+    private static Set<String> scoredAttributeKeys(MatchRequest matchRequest) {
 
-            int left = 0;
-            int right = players.size() - 1;
+        Set<String> attributeKeys = new HashSet<>();
+        if (matchRequest.getTargetAttributes() != null) {
+            attributeKeys.addAll(matchRequest.getTargetAttributes().keySet());
+        }
+        if (matchRequest.getBucketAttribute() != null) {
+            attributeKeys.add(matchRequest.getBucketAttribute());
+        }
+        if (matchRequest.getRequiredAttributes() != null) {
+            matchRequest.getRequiredAttributes().forEach(filter -> attributeKeys.add(filter.getAttribute()));
+        }
+        return attributeKeys;
+    }
 
-            while (left <= right) {
+    public MatchResponse getGroupsFromCustomIds(MatchRequest matchRequest) {
 
-                for(int i = 0; i < groupSize && left <= right; i++) {
+        List<String> customPlayerIds = matchRequest.getPlayerIds();
+        if(customPlayerIds == null) {
 
-                    if(i % 2 == 0) {
-                        currentGroup.add(players.get(left++));
-                    } else {
-                        currentGroup.add(players.get(right--));
-                    }
-                }
-                matchGroups.add(new ArrayList<>(currentGroup));
-                currentGroup.clear();
-            }
+            return new MatchResponse(new ArrayList<>(), MatchConstants.MATCH_PLAYER_IDS_MANDATORY_MESSAGE);
         }
+        if (engineOf(matchRequest) == MatchEngine.AGGREGATION) {
 
-        return new MatchResponse(matchGroups, MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
-    }
+            return new MatchResponse(new ArrayList<>(),
+                    String.format(MatchConstants.MATCH_ENGINE_POOL_ONLY_MESSAGE, MatchEngine.AGGREGATION));
+        }
+        String filterMessage = AttributeFilters.validate(matchRequest.getRequiredAttributes());
+        if (filterMessage != null) {
 
-    private double calculateScoreForPlayer(PlayerBasicDTO player, MatchRequest matchRequest) {
+            return new MatchResponse(new ArrayList<>(), filterMessage);
+        }
+        PlayerResolver.Resolution resolution = playerResolver.resolve(customPlayerIds);
+        if (!resolution.missingIds().isEmpty()) {
+
+            return new MatchResponse(new ArrayList<>(),
+                    "Player with ID " + resolution.missingIds().get(0) + " not found");
+        }
 
-        double totalScore = 0.0;
-        double totalWeight = 0.0;
+        return createMatchGroups(playerService.withBufferedUpdates(resolution.players()).stream()
+                .filter(player -> AttributeFilters.matches(matchRequest.getRequiredAttributes(), player.getAttributes()))
+                .toList(), matchRequest);
+    }
 
-        for(Map.Entry<String, Object> entry: matchRequest.getTargetAttributes().entrySet()) {
+    private MatchResponse createMatchGroups(List<Player> players, MatchRequest matchRequest) {
 
-            String attributeKey = entry.getKey();
-            Object targetValue = entry.getValue();
-            Object playerValue = player.getAttributes().get(attributeKey);
-            double weight = matchRequest.getAttributeWeights().get(attributeKey);
+        MatchEngine engine = engineOf(matchRequest);
+        GroupingEngine groupingEngine = groupingEngines.get(engine);
+        if (groupingEngine == null) {
 
-            double attributeScore = 0.0;
+            return new MatchResponse(new ArrayList<>(), String.format(MatchConstants.MATCH_ENGINE_UNAVAILABLE_MESSAGE, engine));
+        }
 
-            if(playerValue instanceof Number && targetValue instanceof Number) {
+        ScoringPlan scoringPlan = ScoringPlan.compile(matchRequest);
+        PlayerColumns columns = PlayerColumns.of(players, scoringPlan.attributeKeys());
 
-                double playerVal = ((Number) playerValue).doubleValue();
-                double targetVal = ((Number) targetValue).doubleValue();
+        try {
 
-                attributeScore = 1 - Math.abs(playerVal - targetVal)/Math.max(playerVal, targetVal);
-            }
-            if(playerValue != null && playerValue.equals(targetValue)) {
+            List<List<PlayerBasicDTO>> matchGroups = groupingEngine.formGroups(scoringPlan, columns, matchRequest);
+            // the engines that only return complete groups say why none formed; SORTED keeps its old response
+            if (matchGroups.isEmpty() && engine != MatchEngine.SORTED) {
 
-                attributeScore = 1.0;
+                return new MatchResponse(matchGroups, MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
             }
 
-            totalScore += attributeScore * weight;
-            totalWeight += weight;
+            return new MatchResponse(matchGroups, MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        } catch (IllegalArgumentException e) {
+
+            return new MatchResponse(new ArrayList<>(), e.getMessage());
         }
+    }
+
+    /**
+     * Canonical form of a pool request: numeric targets are compared by value, so {@code 80}
+     * and {@code 80.0} coalesce, and the player ids the pool path ignores are left out.
+     */
+    private record PoolRequestKey(Map<String, Object> targetAttributes, Map<String, Double> attributeWeights,
+                                  int groupSize, boolean matchTypeFair, MatchEngine engine,
+                                  String bucketAttribute, Double bucketWidth,
+                                  List<AttributeFilter> requiredAttributes) {
+
+        private static PoolRequestKey of(MatchRequest matchRequest) {
+
+            Map<String, Object> targetAttributes = null;
+            if (matchRequest.getTargetAttributes() != null) {
+                targetAttributes = new HashMap<>();
+                for (Map.Entry<String, Object> target : matchRequest.getTargetAttributes().entrySet()) {
+                    targetAttributes.put(target.getKey(), target.getValue() instanceof Number number
+                            ? number.doubleValue()
+                            : target.getValue());
+                }
+            }
 
-        return totalWeight > 0 ? totalScore / totalWeight : 0.0;
+            return new PoolRequestKey(targetAttributes,
+                    matchRequest.getAttributeWeights() == null ? null : new HashMap<>(matchRequest.getAttributeWeights()),
+                    matchRequest.getGroupSize(), matchRequest.isMatchTypeFair(),
+                    engineOf(matchRequest),
+                    matchRequest.getBucketAttribute(), matchRequest.getBucketWidth(),
+                    matchRequest.getRequiredAttributes() == null ? null : new ArrayList<>(matchRequest.getRequiredAttributes()));
+        }
     }
 }
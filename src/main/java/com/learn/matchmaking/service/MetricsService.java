@@ -0,0 +1,50 @@
+package com.learn.matchmaking.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-process registry of matchmaking counters and gauges, exposed at {@code GET /metrics}.
+ * Counters are {@link LongAdder}s, so hot paths can increment them without contention.
+ */
+@Service
+public class MetricsService {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    public void increment(String name) {
+
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    }
+
+    public long count(String name) {
+
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public void registerGauge(String name, Supplier<? extends Number> gauge) {
+
+        gauges.put(name, gauge);
+    }
+
+    public Map<String, Number> snapshot() {
+
+        Map<String, Number> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+
+        return snapshot;
+    }
+}
@@ -1,27 +1,95 @@
 package com.learn.matchmaking.service;
 
+import com.learn.matchmaking.constant.MetricConstants;
 import com.learn.matchmaking.model.MyUserDetails;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.repo.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
+
+/**
+ * Loads users for authentication through a size- and time-bounded cache. Anything that
+ * changes a user's password or roles must {@link #evict(String) evict} it, so the next
+ * lookup reads the stored user again.
+ */
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private UserRepository userRepo;
+    private final MetricsService metricsService;
+    private final ExpiringLruCache<String, UserDetails> users;
+    private final Clock clock;
+    private final long ttlMillis;
 
     @Autowired
-    public MyUserDetailsService(UserRepository userRepo) { this.userRepo = userRepo; }
+    public MyUserDetailsService(UserRepository userRepo, MetricsService metricsService,
+                                @Value("${matchmaking.auth.user-cache.size:1000}") int cacheSize,
+                                @Value("${matchmaking.auth.user-cache.ttl:60000}") long ttlMillis) {
+
+        this.userRepo = userRepo;
+        this.metricsService = metricsService;
+        this.clock = Clock.systemUTC();
+        this.users = new ExpiringLruCache<>(ttlMillis > 0 ? cacheSize : 0, clock);
+        this.ttlMillis = ttlMillis;
+        metricsService.registerGauge(MetricConstants.USER_CACHE_SIZE, users::size);
+        metricsService.registerGauge(MetricConstants.USER_CACHE_HITS, users::hits);
+        metricsService.registerGauge(MetricConstants.USER_CACHE_MISSES, users::misses);
+        metricsService.registerGauge(MetricConstants.USER_CACHE_EVICTIONS, users::evictions);
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        Users user = userRepo.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException(username));
+        UserDetails cached = users.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        return loadUserByUsernameUncached(username);
+    }
+
+    /**
+     * Reads the stored user, bypassing the cache, for checks that must see a password or role
+     * change at once; the cache is refreshed with what was read.
+     */
+    public UserDetails loadUserByUsernameUncached(String username) throws UsernameNotFoundException {
+
+        Users user = userRepo.findByUsername(username).orElseThrow(() -> {
+            evict(username);
+            return new UsernameNotFoundException(username);
+        });
+        UserDetails userDetails = new MyUserDetails(user);
+        users.put(username, userDetails, clock.millis() + ttlMillis);
+
+        return userDetails;
+    }
+
+    /**
+     * Stores a hash re-encoded at the configured BCrypt strength after a successful login.
+     * The password itself is unchanged, so the user version is not bumped and issued tokens
+     * stay valid.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        if (userRepo.updatePassword(user.getUsername(), user.getPassword(), newPassword) == 0) {
+            return user;
+        }
+        metricsService.increment(MetricConstants.PASSWORD_REHASHES);
+        evict(user.getUsername());
+
+        return loadUserByUsername(user.getUsername());
+    }
+
+    public void evict(String username) {
 
-        return new MyUserDetails(user);
+        users.invalidate(username);
     }
 }
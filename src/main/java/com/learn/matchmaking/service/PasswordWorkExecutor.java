@@ -0,0 +1,100 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.constant.MetricConstants;
+import com.learn.matchmaking.constant.UserConstants;
+import com.learn.matchmaking.exception.PasswordWorkRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work (login checks and registration hashing) on its own few threads, so a
+ * burst of logins can use at most those cores and never the request threads serving
+ * matchmaking. Work beyond the bounded queue is refused at once with
+ * {@link PasswordWorkRejectedException} instead of waiting behind the burst.
+ */
+@Service
+public class PasswordWorkExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final MetricsService metricsService;
+    private final long retryAfterSeconds;
+    private final LongAccumulator maxWaitMillis = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public PasswordWorkExecutor(MetricsService metricsService,
+                                @Value("${matchmaking.auth.password-work.threads:2}") int threads,
+                                @Value("${matchmaking.auth.password-work.queue-capacity:64}") int queueCapacity,
+                                @Value("${matchmaking.auth.password-work.retry-after:1}") long retryAfterSeconds) {
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(threads, 1), Math.max(threads, 1), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), runnable -> {
+                    Thread thread = new Thread(runnable, "password-work-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.metricsService = metricsService;
+        this.retryAfterSeconds = retryAfterSeconds;
+        metricsService.registerGauge(MetricConstants.PASSWORD_WORK_QUEUE_DEPTH, () -> executor.getQueue().size());
+        metricsService.registerGauge(MetricConstants.PASSWORD_WORK_ACTIVE, executor::getActiveCount);
+        metricsService.registerGauge(MetricConstants.PASSWORD_WORK_MAX_WAIT, maxWaitMillis::get);
+    }
+
+    /**
+     * Runs the work on a password thread and waits for its result; exceptions thrown by the
+     * work are rethrown as they are.
+     *
+     * @throws PasswordWorkRejectedException when the queue is full
+     */
+    public <T> T call(Supplier<T> work) {
+
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt);
+                metricsService.increment(MetricConstants.PASSWORD_WORK_TASKS);
+                metricsService.add(MetricConstants.PASSWORD_WORK_WAIT, waitMillis);
+                maxWaitMillis.accumulate(waitMillis);
+                return work.get();
+            });
+        } catch (RejectedExecutionException e) {
+            metricsService.increment(MetricConstants.PASSWORD_WORK_REJECTED);
+            throw new PasswordWorkRejectedException(UserConstants.AUTHENTICATION_BUSY_MESSAGE, retryAfterSeconds);
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,170 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.constant.MetricConstants;
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
+import com.learn.matchmaking.matching.SearchingPlayerIndex;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps a {@link SearchingPlayerIndex} of the searching players in step with player writes,
+ * so pool matches with required attributes only load the players that can pass them. The
+ * index is seeded once the application is ready; until then, or when it is disabled, callers
+ * fall back to filtering the loaded pool.
+ * <p>
+ * The index is per instance and only sees the writes of this instance, so it is reconciled
+ * with the database every {@code matchmaking.filter-index.reconcile-interval}. Seeding and
+ * reconciling skip players that changed while the database was read, since the change
+ * received as an event is newer than what was read.
+ */
+@Service
+public class PlayerFilterIndexService {
+
+    private final PlayerRepository playerRepo;
+    private final boolean enabled;
+    private final SearchingPlayerIndex index = new SearchingPlayerIndex();
+    private final Object reconcileLock = new Object();
+    private Set<String> changedWhileReconciling; // guarded by reconcileLock, set while the database is read
+    private volatile boolean ready;
+
+    @Autowired
+    public PlayerFilterIndexService(PlayerRepository playerRepo, MetricsService metricsService,
+                                    @Value("${matchmaking.filter-index.enabled:true}") boolean enabled) {
+
+        this.playerRepo = playerRepo;
+        this.enabled = enabled;
+        metricsService.registerGauge(MetricConstants.FILTER_INDEX_PLAYERS, index::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIndex() {
+
+        if (!enabled) {
+            return;
+        }
+        reconcile();
+        ready = true;
+    }
+
+    @Scheduled(initialDelayString = "${matchmaking.filter-index.reconcile-interval:60000}",
+            fixedDelayString = "${matchmaking.filter-index.reconcile-interval:60000}")
+    public void reconcileIndex() {
+
+        if (enabled && ready) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Makes the index hold the searching players as read from the database, except the
+     * players that changed while it was read.
+     */
+    private void reconcile() {
+
+        synchronized (reconcileLock) {
+            changedWhileReconciling = new HashSet<>();
+        }
+        List<Player> searchingPlayers = playerRepo.findByIsSearchingForMatch(true);
+        synchronized (reconcileLock) {
+            Set<String> searchingIds = new HashSet<>();
+            for (Player player : searchingPlayers) {
+                searchingIds.add(player.getId());
+                if (!changedWhileReconciling.contains(player.getId())) {
+                    index.upsert(player.getId(), player.getAttributes());
+                }
+            }
+            for (String playerId : index.ids()) {
+                if (!searchingIds.contains(playerId) && !changedWhileReconciling.contains(playerId)) {
+                    index.remove(playerId);
+                }
+            }
+            changedWhileReconciling = null;
+        }
+    }
+
+    @EventListener
+    public void onPlayersChanged(PlayersChangedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+        markChanged(event.savedPlayers().stream().map(Player::getId).toList());
+        markChanged(event.deletedPlayerIds());
+        for (Player player : event.savedPlayers()) {
+            if (Boolean.TRUE.equals(player.getIsSearchingForMatch())) {
+                index.upsert(player.getId(), player.getAttributes());
+            } else {
+                index.remove(player.getId());
+            }
+        }
+        event.deletedPlayerIds().forEach(index::remove);
+    }
+
+    /**
+     * Applies partial updates in place; the saved players are only loaded for players that
+     * started searching and are not indexed yet.
+     */
+    @EventListener
+    public void onPlayersUpdated(PlayersUpdatedEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+        markChanged(event.updates().stream().map(PlayerDTO::getId).toList());
+        Set<String> startedSearching = new HashSet<>();
+        for (PlayerDTO update : event.updates()) {
+            if (Boolean.FALSE.equals(update.getIsSearchingForMatch())) {
+                index.remove(update.getId());
+                startedSearching.remove(update.getId());
+            } else if (Boolean.TRUE.equals(update.getIsSearchingForMatch()) && !index.contains(update.getId())) {
+                startedSearching.add(update.getId());
+            } else if (update.getAttributes() != null) {
+                index.merge(update.getId(), update.getAttributes());
+            }
+        }
+        if (startedSearching.isEmpty()) {
+            return;
+        }
+        for (Player player : event.savedPlayers()) {
+            if (startedSearching.contains(player.getId()) && Boolean.TRUE.equals(player.getIsSearchingForMatch())) {
+                index.upsert(player.getId(), player.getAttributes());
+            }
+        }
+    }
+
+    private void markChanged(Collection<String> playerIds) {
+
+        synchronized (reconcileLock) {
+            if (changedWhileReconciling != null) {
+                changedWhileReconciling.addAll(playerIds);
+            }
+        }
+    }
+
+    /**
+     * Ids of the searching players that pass every filter, or empty when the index cannot
+     * answer yet and the caller has to filter the whole pool itself.
+     */
+    public Optional<List<String>> candidates(List<AttributeFilter> filters) {
+
+        if (!enabled || !ready) {
+            return Optional.empty();
+        }
+        return Optional.of(index.candidates(filters));
+    }
+}
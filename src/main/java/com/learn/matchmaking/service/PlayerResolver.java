@@ -0,0 +1,117 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Resolves many player ids at once. The distinct ids are split into chunks, each chunk is one
+ * {@code _id $in} query, and the chunks run concurrently on the player lookup executor.
+ */
+@Service
+public class PlayerResolver {
+
+    private final PlayerRepository playerRepo;
+    private final Executor executor;
+    private final int chunkSize;
+
+    @Autowired
+    public PlayerResolver(PlayerRepository playerRepo, @Qualifier("playerLookupExecutor") Executor executor,
+                          @Value("${matchmaking.lookup.chunk-size:1000}") int chunkSize) {
+
+        this.playerRepo = playerRepo;
+        this.executor = executor;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * The players found for the requested ids, in request order, and the ids that were not
+     * found, also in request order. Repeated ids are repeated in the result.
+     */
+    public record Resolution(List<Player> players, List<String> missingIds, Map<String, Player> playersById) {
+    }
+
+    public Resolution resolve(Collection<String> playerIds) {
+
+        Map<String, Player> playersById = new HashMap<>();
+        for (Player player : inChunks(distinct(playerIds), playerRepo::findAllById)) {
+            playersById.put(player.getId(), player);
+        }
+
+        List<Player> players = new ArrayList<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String playerId : playerIds) {
+            Player player = playerId == null ? null : playersById.get(playerId);
+            if (player == null) {
+                missingIds.add(playerId);
+            } else {
+                players.add(player);
+            }
+        }
+
+        return new Resolution(players, missingIds, playersById);
+    }
+
+    /**
+     * The requested ids that belong to a stored player, distinct and in request order. Only
+     * the ids are read, straight from the {@code _id} index.
+     */
+    public Set<String> existingIds(Collection<String> playerIds) {
+
+        List<String> distinctIds = distinct(playerIds);
+        Set<String> found = new HashSet<>();
+        for (Player player : inChunks(distinctIds, playerRepo::findIdsByIdIn)) {
+            found.add(player.getId());
+        }
+
+        Set<String> existingIds = new LinkedHashSet<>();
+        for (String playerId : distinctIds) {
+            if (found.contains(playerId)) {
+                existingIds.add(playerId);
+            }
+        }
+        return existingIds;
+    }
+
+    private static List<String> distinct(Collection<String> playerIds) {
+
+        return new ArrayList<>(new LinkedHashSet<>(playerIds.stream()
+                .filter(Objects::nonNull)
+                .toList()));
+    }
+
+    private List<Player> inChunks(List<String> ids, Function<List<String>, List<Player>> query) {
+
+        if (ids.size() <= chunkSize) {
+            return query.apply(ids);
+        }
+
+        List<CompletableFuture<List<Player>>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> query.apply(chunk), executor));
+        }
+
+        List<Player> players = new ArrayList<>();
+        for (CompletableFuture<List<Player>> chunk : chunks) {
+            players.addAll(chunk.join());
+        }
+        return players;
+    }
+}
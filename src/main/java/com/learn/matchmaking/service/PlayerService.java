@@ -1,63 +1,195 @@
 package com.learn.matchmaking.service;
 
+import com.learn.matchmaking.constant.MetricConstants;
 import com.learn.matchmaking.constant.PlayerConstants;
 import com.learn.matchmaking.dto.PlayerDTO;
-import com.learn.matchmaking.exception.PlayerIdMissingException;
+import com.learn.matchmaking.dto.PlayerPage;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
 import com.learn.matchmaking.exception.PlayerNotFoundException;
 import com.learn.matchmaking.model.Player;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
 import com.learn.matchmaking.repo.PlayerRepository;
+import com.learn.matchmaking.repo.PlayerRepositoryCustom;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PlayerService {
 
     private final PlayerRepository playerRepo;
+    private final PlayerResolver playerResolver;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlayerUpdateBuffer updateBuffer;
+    private final MetricsService metricsService;
+    private final int writeBatchSize;
+    private final ReentrantLock flushLock = new ReentrantLock();
 
     @Autowired
-    public PlayerService(PlayerRepository playerRepo) {
+    public PlayerService(PlayerRepository playerRepo, PlayerResolver playerResolver,
+                         ApplicationEventPublisher eventPublisher, PlayerUpdateBuffer updateBuffer,
+                         MetricsService metricsService,
+                         @Value("${matchmaking.write.batch-size:1000}") int writeBatchSize) {
 
         this.playerRepo = playerRepo;
+        this.playerResolver = playerResolver;
+        this.eventPublisher = eventPublisher;
+        this.updateBuffer = updateBuffer;
+        this.metricsService = metricsService;
+        this.writeBatchSize = Math.max(writeBatchSize, 1);
+        if (updateBuffer.isEnabled()) {
+            metricsService.registerGauge(MetricConstants.WRITE_BEHIND_DEPTH, updateBuffer::depth);
+            metricsService.registerGauge(MetricConstants.WRITE_BEHIND_LAG, updateBuffer::lagMillis);
+        }
     }
 
     public List<PlayerBasicDTO> getPlayers() {
 
         return playerRepo.findAll().stream()
+                .map(this::withBufferedUpdates)
                 .map(PlayerBasicDTO::new)
                 .toList();
     }
 
-    public PlayerBasicDTO getPlayer(String name) {
+    /**
+     * One page of players in {@code _id} order, starting after the given cursor. The cursor of
+     * the next page is the id of the last player on a full page.
+     */
+    public PlayerPage getPlayers(String after, int limit) {
 
-        return playerRepo.findByName(name)
+        if (after != null && !ObjectId.isValid(after)) {
+            return new PlayerPage(List.of(), null, PlayerConstants.INVALID_CURSOR_MESSAGE + after);
+        }
+        int pageSize = Math.min(Math.max(limit, 1), PlayerConstants.MAX_PAGE_SIZE);
+
+        List<Player> players = after == null
+                ? playerRepo.findAllByOrderByIdAsc(Limit.of(pageSize))
+                : playerRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize));
+        String nextCursor = players.size() == pageSize ? players.get(players.size() - 1).getId() : null;
+
+        return new PlayerPage(players.stream()
+                .map(this::withBufferedUpdates)
                 .map(PlayerBasicDTO::new)
+                .toList(), nextCursor, null);
+    }
+
+    /**
+     * Hands every player to the action while reading them from a database cursor, so only
+     * one cursor batch is held in memory at a time.
+     */
+    public void forEachPlayer(Consumer<PlayerBasicDTO> action) {
+
+        try (Stream<Player> players = playerRepo.streamAllBy()) {
+            players.map(this::withBufferedUpdates).map(PlayerBasicDTO::new).forEach(action);
+        }
+    }
+
+    public PlayerBasicDTO getPlayer(String name) {
+
+        Optional<Player> player = playerRepo.findByName(name).map(this::withBufferedUpdates);
+        if (updateBuffer.isEnabled() && player.filter(found -> name.equals(found.getName())).isEmpty()) {
+            // the stored name may be stale in either direction while a rename is buffered
+            String renamedId = updateBuffer.renamedTo(name);
+            player = renamedId == null ? Optional.empty() : playerRepo.findById(renamedId).map(this::withBufferedUpdates);
+        }
+
+        return player.map(PlayerBasicDTO::new)
                 .orElseThrow(() -> new PlayerNotFoundException("Player with name " + name + " not found"));
     }
 
-    public String registerPlayers(List<PlayerDTO> playersDTO) {
+    private Player withBufferedUpdates(Player player) {
+
+        return updateBuffer.isEnabled() ? updateBuffer.overlay(player) : player;
+    }
+
+    /**
+     * The players as their buffered updates will leave them, without waiting for a flush.
+     */
+    public List<Player> withBufferedUpdates(List<Player> players) {
+
+        return updateBuffer.isEnabled() ? players.stream().map(updateBuffer::overlay).toList() : players;
+    }
+
+    /**
+     * A loaded searching pool as the buffered updates will leave it, without waiting for a
+     * flush: loaded players get their updates applied and are left out when an update stops
+     * their search, and players whose buffered update passes {@code alsoLoad} (one that starts
+     * their search, say) are loaded too and kept when they are searching afterwards.
+     */
+    public List<Player> withBufferedUpdates(List<Player> pool, Predicate<PlayerDTO> alsoLoad) {
 
-            List<String> duplicatePlayers = new ArrayList<>();
-            List<Player> players = playersDTO.stream()
-                            .map(
-                                    playerDTO -> {
-                                            Optional<Player> player = playerRepo.findByName(playerDTO.getName());
-                                            if (player.isPresent()) {
+        if (!updateBuffer.isEnabled()) {
+            return pool;
+        }
+        List<Player> players = new ArrayList<>();
+        Set<String> loadedIds = new HashSet<>();
+        for (Player player : pool) {
+            loadedIds.add(player.getId());
+            Player overlaid = updateBuffer.overlay(player);
+            if (!Boolean.FALSE.equals(overlaid.getIsSearchingForMatch())) {
+                players.add(overlaid);
+            }
+        }
+
+        Set<String> extraIds = updateBuffer.idsMatching(alsoLoad);
+        extraIds.removeAll(loadedIds);
+        if (!extraIds.isEmpty()) {
+            playerResolver.resolve(extraIds).players().stream()
+                    .map(updateBuffer::overlay)
+                    .filter(player -> Boolean.TRUE.equals(player.getIsSearchingForMatch()))
+                    .forEach(players::add);
+        }
+        return players;
+    }
 
-                                                duplicatePlayers.add(playerDTO.getName());
-                                                return null;
-                                            } else {
+    public String registerPlayers(List<PlayerDTO> playersDTO) {
 
-                                                return new Player(playerDTO);
-                                            }
-                                    }
-                            ).filter(Objects::nonNull)
-                            .toList();
-            playerRepo.saveAll(players);
+        List<String> duplicatePlayers = new ArrayList<>();
+        List<Player> savedPlayers = new ArrayList<>();
+        try {
+            for (int from = 0; from < playersDTO.size(); from += writeBatchSize) {
+
+                List<Player> players = playersDTO.subList(from, Math.min(from + writeBatchSize, playersDTO.size()))
+                        .stream()
+                        .map(Player::new)
+                        .toList();
+
+                // taken names are rejected by the unique name index, not looked up beforehand
+                PlayerRepositoryCustom.InsertResult result = playerRepo.insertUnordered(players);
+                savedPlayers.addAll(result.inserted());
+                duplicatePlayers.addAll(result.duplicateNames());
+                if (result.failure() != null) {
+                    throw result.failure();
+                }
+            }
+        } finally {
+            // players written before a failure are in the database and must reach the pools too
+            if (!savedPlayers.isEmpty()) {
+                eventPublisher.publishEvent(PlayersChangedEvent.saved(savedPlayers));
+            }
+        }
 
         if(duplicatePlayers.isEmpty()) {
 
@@ -70,82 +202,309 @@ public class PlayerService {
 
     }
 
+    /**
+     * With write-behind enabled, updates are merged into the update buffer and acknowledged
+     * without writing; {@link #flushPendingUpdates()} writes them later. Ids not buffered yet
+     * are still checked for existence, with an id-only query.
+     */
     public String updatePlayers(List<PlayerDTO> players) {
 
+        List<String> invalidKeys = players.stream()
+                .filter(updatedPlayer -> updatedPlayer.getAttributes() != null)
+                .flatMap(updatedPlayer -> updatedPlayer.getAttributes().keySet().stream())
+                .filter(key -> !isValidAttributeKey(key))
+                .distinct()
+                .toList();
+        if (!invalidKeys.isEmpty()) {
+            return PlayerConstants.INVALID_ATTRIBUTE_KEYS_MESSAGE + String.join(", ", invalidKeys);
+        }
+
         AtomicInteger playerObjectWithIdNull = new AtomicInteger();
-        List<String> missingPlayers = new ArrayList<>();
-        List<Player> updatedPlayers = players.stream()
-                        .map(
-                              updatedPlayer -> {
-                                  try {
-                                      Player player = null;
-                                      String playerId = Optional.ofNullable(updatedPlayer.getId())
-                                              .orElseThrow(() -> new PlayerIdMissingException("Player id is null"));
-
-                                      if(!playerId.isEmpty()) {
-                                          player = playerRepo.findById(playerId)
-                                                  .orElseThrow(() -> new PlayerNotFoundException(updatedPlayer.getId()));
-                                          if (player != null) {
-
-                                              if (updatedPlayer.getName() != null)
-                                                  player.setName(updatedPlayer.getName());
-                                              if (updatedPlayer.getIsSearchingForMatch() != null)
-                                                  player.setIsSearchingForMatch(updatedPlayer.getIsSearchingForMatch());
-                                              if (updatedPlayer.getAttributes() != null) {
-                                                  if (player.getAttributes() == null) {
-                                                      player.setAttributes(updatedPlayer.getAttributes());
-                                                  } else {
-                                                      player.getAttributes().putAll(updatedPlayer.getAttributes());
-                                                  }
-                                              }
-                                          }
-                                      }
-
-                                      return player;
-                                  } catch (PlayerNotFoundException pe) {
-                                      missingPlayers.add(pe.getMessage());
-                                      return null;
-                                  } catch (PlayerIdMissingException pie) {
-                                      playerObjectWithIdNull.getAndIncrement();
-                                      return null;
-                                  }
-                              }
-                        ).filter(Objects::nonNull)
-                .collect(Collectors.toCollection(ArrayList::new));
-        playerRepo.saveAll(updatedPlayers);
-
-        if(missingPlayers.isEmpty() && playerObjectWithIdNull.get() == 0){
+        List<PlayerDTO> updates = new ArrayList<>();
+        for (PlayerDTO updatedPlayer : players) {
+
+            if (updatedPlayer.getId() == null) {
+                playerObjectWithIdNull.getAndIncrement();
+            } else if (!updatedPlayer.getId().isEmpty()) {
+                updates.add(updatedPlayer);
+            }
+        }
+
+        UpdateOutcome outcome = updateBuffer.isEnabled() ? bufferUpdates(updates) : writeUpdates(updates);
+        if (!outcome.failedPlayers().isEmpty()) {
+            throw outcome.failure();
+        }
+        List<String> missingPlayers = outcome.missingPlayers();
+
+        if(missingPlayers.isEmpty() && outcome.rejectedPlayers().isEmpty() && playerObjectWithIdNull.get() == 0){
 
             return PlayerConstants.UPDATE_SUCCESS_MESSAGE;
         } else if (playerObjectWithIdNull.get() > 0) {
 
             return String.format(PlayerConstants.UPDATE_FAILURE_MESSAGE2, playerObjectWithIdNull.get());
-        } else {
+        } else if (!missingPlayers.isEmpty()) {
 
             return PlayerConstants.UPDATE_FAILURE_MESSAGE
                     + String.join(", ", missingPlayers);
+        } else {
+
+            return PlayerConstants.UPDATE_REJECTED_MESSAGE
+                    + String.join(", ", outcome.rejectedPlayers());
         }
     }
 
-    public String deletePlayers(List<String> playerIds) {
+    /**
+     * Players that do not exist, players whose update was refused (a name already taken or an
+     * invalid update) and players whose write failed but may succeed when retried, together
+     * with the failure of those writes.
+     */
+    private record UpdateOutcome(List<String> missingPlayers, List<String> rejectedPlayers,
+                                 Set<String> failedPlayers, RuntimeException failure) {
+    }
+
+    /**
+     * Attribute names become part of an {@code attributes.<name>} update path, so a dot would
+     * write a nested field and a leading {@code $} an operator.
+     */
+    private static boolean isValidAttributeKey(String key) {
+
+        return key != null && !key.isEmpty() && !key.contains(".") && !key.startsWith("$");
+    }
+
+    /**
+     * Writes the updates and publishes those that were written. Missing ids are only looked
+     * up, with an id-only query, when fewer players matched than were updated; the saved
+     * players are only read if a listener of the event needs them.
+     */
+    private UpdateOutcome writeUpdates(List<PlayerDTO> players) {
+
+        List<String> updatedPlayerIds = new ArrayList<>();
+        List<Pair<Query, UpdateDefinition>> updates = new ArrayList<>();
+        List<String> updateOwners = new ArrayList<>();
+        int expectedMatches = 0;
+        for (PlayerDTO updatedPlayer : players) {
+
+            updatedPlayerIds.add(updatedPlayer.getId());
+
+            Update update = partialUpdate(updatedPlayer);
+            if (update.getUpdateObject().isEmpty()) {
+                continue;
+            }
+            expectedMatches++;
+            Query byId = Query.query(Criteria.where("_id").is(updatedPlayer.getId()));
+            updates.add(Pair.of(byId, Boolean.TRUE.equals(updatedPlayer.getIsSearchingForMatch())
+                    ? startSearchingUpdate(update, Instant.now())
+                    : update));
+            updateOwners.add(updatedPlayer.getId());
+        }
+
+        PlayerRepositoryCustom.UpdateEachResult result = playerRepo.updateEach(updates);
+        Set<String> rejectedIds = new LinkedHashSet<>();
+        result.rejected().forEach(index -> rejectedIds.add(updateOwners.get(index)));
+        Set<String> failedIds = new HashSet<>();
+        result.failed().forEach(index -> failedIds.add(updateOwners.get(index)));
+        failedIds.removeAll(rejectedIds);
+
+        List<String> missingPlayers = List.of();
+        if (result.matched() < expectedMatches || expectedMatches < updatedPlayerIds.size()) {
+            Set<String> existingIds = playerResolver.existingIds(updatedPlayerIds);
+            missingPlayers = updatedPlayerIds.stream()
+                    .filter(playerId -> !existingIds.contains(playerId))
+                    .distinct()
+                    .toList();
+        }
+
+        List<PlayerDTO> written = players.stream()
+                .filter(player -> !rejectedIds.contains(player.getId()) && !failedIds.contains(player.getId()))
+                .toList();
+        if (!written.isEmpty()) {
+            List<String> writtenIds = written.stream().map(PlayerDTO::getId).toList();
+            eventPublisher.publishEvent(new PlayersUpdatedEvent(written, () -> playerResolver.resolve(writtenIds)
+                    .players().stream()
+                    .distinct()
+                    .toList()));
+        }
+
+        return new UpdateOutcome(missingPlayers, new ArrayList<>(rejectedIds), failedIds, result.failure());
+    }
+
+    /**
+     * Merges the updates into the buffer. A full buffer is flushed by the caller, which keeps
+     * the buffer bounded at the cost of one synchronous write. A rename to a name that another
+     * player holds, in the database or in the buffer, is refused before it is acknowledged.
+     */
+    private UpdateOutcome bufferUpdates(List<PlayerDTO> updates) {
+
+        Set<String> bufferedIds = new HashSet<>();
+        List<String> unbufferedIds = new ArrayList<>();
+        for (PlayerDTO update : updates) {
+            if (updateBuffer.isPending(update.getId())) {
+                bufferedIds.add(update.getId());
+            } else {
+                unbufferedIds.add(update.getId());
+            }
+        }
+        Set<String> existingIds = unbufferedIds.isEmpty() ? Set.of() : playerResolver.existingIds(unbufferedIds);
 
         List<String> missingPlayers = new ArrayList<>();
-        List<String> deletePlayers = playerIds.stream()
-                .map(
-                        deletePlayer -> {
-                            try {
-                                  Player  player = playerRepo.findById(deletePlayer)
-                                            .orElseThrow(() -> new PlayerNotFoundException(deletePlayer));
-                                return player.getId();
-
-                            } catch (PlayerNotFoundException pe) {
-                                missingPlayers.add(pe.getMessage());
-                                return null;
-                            }
-                        }
-                ).filter(Objects::nonNull)
-                .collect(Collectors.toCollection(ArrayList::new));
-        playerRepo.deleteAllById(deletePlayers);
+        List<String> rejectedPlayers = new ArrayList<>();
+        Map<String, String> requestedNames = new HashMap<>();
+        for (PlayerDTO update : updates) {
+
+            if (!bufferedIds.contains(update.getId()) && !existingIds.contains(update.getId())) {
+                missingPlayers.add(update.getId());
+                continue;
+            }
+            if (update.getName() != null) {
+                String requestedBy = requestedNames.putIfAbsent(update.getName(), update.getId());
+                if ((requestedBy != null && !requestedBy.equals(update.getId()))
+                        || isNameTaken(update.getName(), update.getId())) {
+                    rejectedPlayers.add(update.getId());
+                    continue;
+                }
+            }
+            if (bufferedIds.contains(update.getId())) {
+                metricsService.increment(MetricConstants.WRITE_BEHIND_MERGED);
+            }
+            while (!updateBuffer.offer(update)) {
+                flushPendingUpdates();
+            }
+        }
+
+        return new UpdateOutcome(missingPlayers, rejectedPlayers, Set.of(), null);
+    }
+
+    /**
+     * Whether another player holds the name once the buffered updates are applied.
+     */
+    private boolean isNameTaken(String name, String playerId) {
+
+        String renamedId = updateBuffer.renamedTo(name);
+        if (renamedId != null) {
+            return !renamedId.equals(playerId);
+        }
+        return playerRepo.findByName(name)
+                .filter(holder -> !holder.getId().equals(playerId))
+                .map(updateBuffer::overlay)
+                .filter(holder -> name.equals(holder.getName()))
+                .isPresent();
+    }
+
+    /**
+     * Writes every buffered update with one bulk write. Flushes run one at a time, so two
+     * updates of the same player are never written out of order. Updates the database refuses
+     * (a duplicate name, for instance) are dropped and counted, since writing them again would
+     * fail again; updates whose write may succeed when retried, or the whole batch when the
+     * write itself failed, are put back into the buffer.
+     */
+    public void flushPendingUpdates() {
+
+        if (!updateBuffer.isEnabled() || updateBuffer.depth() == 0) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            Map<String, PlayerDTO> drained = updateBuffer.drain();
+            if (drained.isEmpty()) {
+                updateBuffer.completed();
+                return;
+            }
+            UpdateOutcome outcome;
+            try {
+                outcome = writeUpdates(new ArrayList<>(drained.values()));
+            } catch (RuntimeException e) {
+                updateBuffer.restore(drained);
+                throw e;
+            }
+            if (outcome.failedPlayers().isEmpty()) {
+                updateBuffer.completed();
+            } else {
+                Map<String, PlayerDTO> failed = new LinkedHashMap<>(drained);
+                failed.keySet().retainAll(outcome.failedPlayers());
+                updateBuffer.restore(failed);
+            }
+            metricsService.increment(MetricConstants.WRITE_BEHIND_FLUSHES);
+            // players deleted after their update was acknowledged
+            metricsService.add(MetricConstants.WRITE_BEHIND_DROPPED, outcome.missingPlayers().size());
+            metricsService.add(MetricConstants.WRITE_BEHIND_REJECTED, outcome.rejectedPlayers().size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${matchmaking.write-behind.poll-interval:50}")
+    public void flushDueUpdates() {
+
+        if (updateBuffer.isDue(writeBatchSize)) {
+            flushPendingUpdates();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+
+        flushPendingUpdates();
+    }
+
+    /**
+     * The non-null fields of the DTO as {@code $set} operations on single fields, so the stored
+     * document is never read or rewritten as a whole.
+     */
+    private static Update partialUpdate(PlayerDTO updatedPlayer) {
+
+        Update update = new Update();
+        if (updatedPlayer.getName() != null) {
+            update.set("name", updatedPlayer.getName());
+        }
+        if (updatedPlayer.getAttributes() != null) {
+            updatedPlayer.getAttributes().forEach((key, value) -> update.set("attributes." + key, value));
+        }
+        if (updatedPlayer.getIsSearchingForMatch() != null) {
+            update.set("isSearchingForMatch", updatedPlayer.getIsSearchingForMatch());
+            if (!updatedPlayer.getIsSearchingForMatch()) {
+                // a scheduler tick that has this player claimed must not put them back in the pool
+                update.unset(PlayerRepositoryCustom.MATCH_CLAIM);
+            }
+        }
+        return update;
+    }
+
+    /**
+     * The update as one pipeline stage that also stamps {@code searchingSince}, but only on a
+     * player that was not searching yet: the {@code $cond} reads the stored flag before the
+     * stage sets it, so one write per player covers both cases. Any scheduler claim is dropped
+     * with the stamp, so releasing that claim cannot undo this update. Values are wrapped in
+     * {@code $literal}, so a string starting with {@code $} is not read as a field path.
+     */
+    private static UpdateDefinition startSearchingUpdate(Update update, Instant searchingSince) {
+
+        Document set = new Document();
+        update.getUpdateObject().get("$set", Document.class)
+                .forEach((field, value) -> set.append(field, new Document("$literal", value)));
+        set.append("searchingSince", new Document("$cond", List.of(
+                new Document("$eq", List.of("$isSearchingForMatch", true)),
+                "$searchingSince",
+                new Document("$literal", Date.from(searchingSince)))));
+        set.append(PlayerRepositoryCustom.MATCH_CLAIM, "$$REMOVE");
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    public String deletePlayers(List<String> playerIds) {
+
+        Set<String> existingIds = playerResolver.existingIds(playerIds);
+        List<String> missingPlayers = playerIds.stream()
+                .filter(playerId -> !existingIds.contains(playerId))
+                .map(String::valueOf)
+                .toList();
+        List<String> deletePlayers = new ArrayList<>(existingIds);
+        if (updateBuffer.isEnabled()) {
+            updateBuffer.discard(deletePlayers);
+        }
+        for (int from = 0; from < deletePlayers.size(); from += writeBatchSize) {
+            playerRepo.deleteByIdIn(deletePlayers.subList(from, Math.min(from + writeBatchSize, deletePlayers.size())));
+        }
+        eventPublisher.publishEvent(PlayersChangedEvent.deleted(deletePlayers));
 
         if(missingPlayers.isEmpty()){
 
@@ -0,0 +1,223 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.model.Player;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind buffer of player updates. Updates for the same player are merged into one
+ * pending update (later fields win, attribute maps are merged), so a player updated many
+ * times between flushes is written once. The buffer holds at most {@code maxPending}
+ * players; a drained batch stays visible as in flight until its write completed, so reads
+ * can overlay every acknowledged update on what they load.
+ */
+public final class PlayerUpdateBuffer {
+
+    private final boolean enabled;
+    private final long maxDelayMillis;
+    private final int maxPending;
+    private final Clock clock;
+
+    private LinkedHashMap<String, PlayerDTO> pending = new LinkedHashMap<>();
+    private Map<String, PlayerDTO> inFlight = Map.of();
+    private long oldestPendingAt;
+    private long oldestInFlightAt;
+
+    public PlayerUpdateBuffer(boolean enabled, long maxDelayMillis, int maxPending, Clock clock) {
+
+        this.enabled = enabled;
+        this.maxDelayMillis = Math.max(maxDelayMillis, 0);
+        this.maxPending = Math.max(maxPending, 1);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Merges the update into the pending update of its player.
+     *
+     * @return {@code false} when the player has no pending update and the buffer is full
+     */
+    public synchronized boolean offer(PlayerDTO update) {
+
+        PlayerDTO buffered = pending.get(update.getId());
+        if (buffered == null) {
+            if (pending.size() >= maxPending) {
+                return false;
+            }
+            if (pending.isEmpty()) {
+                oldestPendingAt = clock.millis();
+            }
+            buffered = new PlayerDTO(update.getId(), null, null, null);
+            pending.put(update.getId(), buffered);
+        }
+        merge(buffered, update);
+        return true;
+    }
+
+    public synchronized boolean isPending(String playerId) {
+
+        return pending.containsKey(playerId);
+    }
+
+    /**
+     * Takes every pending update out of the buffer; they stay visible to reads until
+     * {@link #completed()} or {@link #restore(Map)}.
+     */
+    public synchronized Map<String, PlayerDTO> drain() {
+
+        Map<String, PlayerDTO> drained = pending;
+        inFlight = drained;
+        oldestInFlightAt = oldestPendingAt;
+        pending = new LinkedHashMap<>();
+        return drained;
+    }
+
+    public synchronized void completed() {
+
+        inFlight = Map.of();
+    }
+
+    /**
+     * Puts a drained batch whose write failed back in front of the updates buffered since.
+     */
+    public synchronized void restore(Map<String, PlayerDTO> drained) {
+
+        LinkedHashMap<String, PlayerDTO> restored = new LinkedHashMap<>(drained);
+        pending.forEach((playerId, update) -> {
+            PlayerDTO earlier = restored.get(playerId);
+            if (earlier == null) {
+                restored.put(playerId, update);
+            } else {
+                merge(earlier, update);
+            }
+        });
+        if (!drained.isEmpty()) {
+            oldestPendingAt = oldestInFlightAt;
+        }
+        pending = restored;
+        inFlight = Map.of();
+    }
+
+    public synchronized void discard(Collection<String> playerIds) {
+
+        playerIds.forEach(pending::remove);
+    }
+
+    public synchronized int depth() {
+
+        return pending.size();
+    }
+
+    /**
+     * Milliseconds since the oldest pending update was buffered, {@code 0} when nothing is
+     * pending.
+     */
+    public synchronized long lagMillis() {
+
+        return pending.isEmpty() ? 0 : clock.millis() - oldestPendingAt;
+    }
+
+    public synchronized boolean isDue(int flushSize) {
+
+        return !pending.isEmpty() && (pending.size() >= flushSize || lagMillis() >= maxDelayMillis);
+    }
+
+    /**
+     * The player with its in-flight and pending updates applied, or the player itself when
+     * none are buffered.
+     */
+    public synchronized Player overlay(Player player) {
+
+        PlayerDTO writing = inFlight.get(player.getId());
+        PlayerDTO buffered = pending.get(player.getId());
+        if (writing == null && buffered == null) {
+            return player;
+        }
+
+        Player overlaid = new Player(player.getId(), player.getName(),
+                player.getAttributes() == null ? null : new LinkedHashMap<>(player.getAttributes()),
+                player.getIsSearchingForMatch());
+        overlaid.setSearchingSince(player.getSearchingSince());
+        apply(overlaid, writing);
+        apply(overlaid, buffered);
+        return overlaid;
+    }
+
+    /**
+     * Id of the player a buffered update renames to the given name, or {@code null}.
+     */
+    public synchronized String renamedTo(String name) {
+
+        for (Map<String, PlayerDTO> updates : List.of(pending, inFlight)) {
+            for (PlayerDTO update : updates.values()) {
+                if (name.equals(update.getName())) {
+                    return update.getId();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ids of the players with an in-flight or pending update that passes the predicate.
+     */
+    public synchronized Set<String> idsMatching(Predicate<PlayerDTO> predicate) {
+
+        Set<String> playerIds = new HashSet<>();
+        for (Map<String, PlayerDTO> updates : List.of(inFlight, pending)) {
+            for (PlayerDTO update : updates.values()) {
+                if (predicate.test(update)) {
+                    playerIds.add(update.getId());
+                }
+            }
+        }
+        return playerIds;
+    }
+
+    private static void merge(PlayerDTO buffered, PlayerDTO update) {
+
+        if (update.getName() != null) {
+            buffered.setName(update.getName());
+        }
+        if (update.getAttributes() != null) {
+            if (buffered.getAttributes() == null) {
+                buffered.setAttributes(new LinkedHashMap<>());
+            }
+            buffered.getAttributes().putAll(update.getAttributes());
+        }
+        if (update.getIsSearchingForMatch() != null) {
+            buffered.setIsSearchingForMatch(update.getIsSearchingForMatch());
+        }
+    }
+
+    private static void apply(Player player, PlayerDTO update) {
+
+        if (update == null) {
+            return;
+        }
+        if (update.getName() != null) {
+            player.setName(update.getName());
+        }
+        if (update.getAttributes() != null) {
+            if (player.getAttributes() == null) {
+                player.setAttributes(new LinkedHashMap<>());
+            }
+            player.getAttributes().putAll(update.getAttributes());
+        }
+        if (update.getIsSearchingForMatch() != null) {
+            player.setIsSearchingForMatch(update.getIsSearchingForMatch());
+        }
+    }
+}
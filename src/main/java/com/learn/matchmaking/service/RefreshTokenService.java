@@ -0,0 +1,99 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.dto.TokenResponse;
+import com.learn.matchmaking.model.RefreshToken;
+import com.learn.matchmaking.repo.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Long-lived, single-use refresh tokens. A refresh token is 256 random bits handed to the
+ * client once; only its SHA-256 is stored, which is enough for a secret with that much
+ * entropy, so a refresh costs one hash instead of a BCrypt check. Every refresh deletes the
+ * presented token and issues a new one with a new access token.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepo;
+    private final JWTService jwtService;
+    private final MyUserDetailsService myUserDetailsService;
+    private final Duration ttl;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepo, JWTService jwtService,
+                               MyUserDetailsService myUserDetailsService,
+                               @Value("${matchmaking.auth.refresh-token.ttl:30d}") Duration ttl) {
+
+        this(refreshTokenRepo, jwtService, myUserDetailsService, ttl, Clock.systemUTC());
+    }
+
+    RefreshTokenService(RefreshTokenRepository refreshTokenRepo, JWTService jwtService,
+                        MyUserDetailsService myUserDetailsService, Duration ttl, Clock clock) {
+
+        this.refreshTokenRepo = refreshTokenRepo;
+        this.jwtService = jwtService;
+        this.myUserDetailsService = myUserDetailsService;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Stores a new refresh token for the user and returns it; it is not kept anywhere else.
+     */
+    public String issue(String username) {
+
+        byte[] secret = new byte[TOKEN_BYTES];
+        random.nextBytes(secret);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        refreshTokenRepo.save(new RefreshToken(null, TokenHashes.sha256(token), username, clock.instant().plus(ttl)));
+
+        return token;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     *
+     * @return empty when the token is unknown, expired, already used or its user is gone
+     */
+    public Optional<TokenResponse> refresh(String refreshToken) {
+
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Optional.empty();
+        }
+
+        String tokenHash = TokenHashes.sha256(refreshToken);
+        Optional<RefreshToken> stored = refreshTokenRepo.findByTokenHash(tokenHash);
+        if (stored.isEmpty() || !stored.get().getExpiresAt().isAfter(clock.instant())
+                || refreshTokenRepo.deleteByTokenHash(tokenHash) != 1) {
+            return Optional.empty();
+        }
+
+        UserDetails user;
+        try {
+            user = myUserDetailsService.loadUserByUsername(stored.get().getUsername());
+        } catch (UsernameNotFoundException e) {
+            return Optional.empty();
+        }
+        String accessToken = jwtService.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        return Optional.of(new TokenResponse(accessToken, issue(user.getUsername()), null));
+    }
+
+}
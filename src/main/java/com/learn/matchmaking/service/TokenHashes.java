@@ -0,0 +1,26 @@
+package com.learn.matchmaking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of a token as lowercase hex, the one form tokens are keyed and stored by: verified
+ * access tokens in the verification cache and refresh tokens in the database.
+ */
+final class TokenHashes {
+
+    private TokenHashes() {
+    }
+
+    static String sha256(String token) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.learn.matchmaking.service;
 
 import com.learn.matchmaking.constant.UserConstants;
+import com.learn.matchmaking.dto.TokenResponse;
 import com.learn.matchmaking.dto.UsersDTO;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.repo.UserRepository;
@@ -9,7 +10,7 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -20,14 +21,23 @@ public class UsersService {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepo;
     private final JWTService jwtService;
-    private BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(12);
+    private final MyUserDetailsService myUserDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordWorkExecutor passwordWorkExecutor;
 
     @Autowired
-    public UsersService(UserRepository userRepo, AuthenticationManager authenticationManager, JWTService jwtService) {
+    public UsersService(UserRepository userRepo, AuthenticationManager authenticationManager, JWTService jwtService,
+                        MyUserDetailsService myUserDetailsService, RefreshTokenService refreshTokenService,
+                        PasswordEncoder passwordEncoder, PasswordWorkExecutor passwordWorkExecutor) {
 
         this.userRepo = userRepo;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
+        this.myUserDetailsService = myUserDetailsService;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordWorkExecutor = passwordWorkExecutor;
     }
 
     public String registerUser(UsersDTO userDTO) {
@@ -37,8 +47,10 @@ public class UsersService {
         if (existingUser.isEmpty()) {
 
             Users user = new Users(userDTO);
-            user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
+            user.setPassword(passwordWorkExecutor.call(() -> passwordEncoder.encode(userDTO.getPassword())));
             userRepo.save(user);
+            // drop any cached copy of a user previously stored under this name
+            myUserDetailsService.evict(user.getUsername());
 
             return UserConstants.USER_REGISTRATION_SUCCESSFUL_MESSAGE;
         } else {
@@ -49,19 +61,51 @@ public class UsersService {
 
     public String verifyUser(UsersDTO user) {
 
-        Authentication authentication = authenticationManager
-                .authenticate(new UsernamePasswordAuthenticationToken(
-                        user.getUsername(),
-                        user.getPassword()
-                ));
+        Authentication authentication = authenticate(user);
 
         if (authentication.isAuthenticated()) {
 
-            return jwtService.generateToken(user.getUsername());
+            return jwtService.generateToken(authentication);
         } else {
 
             throw new UsernameNotFoundException(UserConstants.USER_LOGIN_FAILED_MESSAGE);
         }
     }
 
+    /**
+     * Logs in like {@link #verifyUser(UsersDTO)} and also issues a refresh token, so the client
+     * can renew its access token without sending the password again.
+     */
+    public TokenResponse issueTokens(UsersDTO user) {
+
+        Authentication authentication = authenticate(user);
+
+        if (authentication.isAuthenticated()) {
+
+            return new TokenResponse(jwtService.generateToken(authentication),
+                    refreshTokenService.issue(authentication.getName()), null);
+        } else {
+
+            throw new UsernameNotFoundException(UserConstants.USER_LOGIN_FAILED_MESSAGE);
+        }
+    }
+
+    public TokenResponse refreshTokens(String refreshToken) {
+
+        return refreshTokenService.refresh(refreshToken)
+                .orElseGet(() -> new TokenResponse(null, null, UserConstants.REFRESH_TOKEN_INVALID_MESSAGE));
+    }
+
+    /**
+     * Checks the password on the password executor; a successful check of a hash stored at a
+     * lower BCrypt strength also stores it again at the configured strength.
+     */
+    private Authentication authenticate(UsersDTO user) {
+
+        return passwordWorkExecutor.call(() -> authenticationManager
+                .authenticate(new UsernamePasswordAuthenticationToken(
+                        user.getUsername(),
+                        user.getPassword()
+                )));
+    }
 }
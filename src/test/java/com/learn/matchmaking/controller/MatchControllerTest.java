@@ -9,6 +9,8 @@ import com.learn.matchmaking.dto.PlayerBasicDTO;
 import com.learn.matchmaking.model.MyUserDetails;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.service.JWTService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import com.learn.matchmaking.service.MatchService;
 import com.learn.matchmaking.service.MyUserDetailsService;
 import org.jetbrains.annotations.NotNull;
@@ -27,6 +29,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -49,6 +52,7 @@ class MatchControllerTest {
     private String username;
     private String testToken;
     private UserDetails userDetails;
+    private Claims claims;
 
     @Autowired
     public MatchControllerTest(MockMvc mockMvc, ObjectMapper objectMapper) {
@@ -66,6 +70,7 @@ class MatchControllerTest {
         users.setUsername(username);
         users.setPassword("Testpassword");
         userDetails = new MyUserDetails(users);
+        claims = Jwts.claims().subject(username).build();
     }
 
     @Test
@@ -85,9 +90,9 @@ class MatchControllerTest {
         String matchJson = objectMapper.writeValueAsString(request);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(matchService.getGroupsFromPool(request)).thenReturn(response);
 
         //then
@@ -112,9 +117,9 @@ class MatchControllerTest {
         String matchJSON = objectMapper.writeValueAsString(request);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(matchService.getGroupsFromPool(request)).thenReturn(response);
 
         //then
@@ -142,9 +147,9 @@ class MatchControllerTest {
         MatchResponse response = new MatchResponse(playersDTO, MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(matchService.getGroupsFromCustomIds(request)).thenReturn(response);
 
         //then
@@ -169,9 +174,9 @@ class MatchControllerTest {
         String matchJSON = objectMapper.writeValueAsString(request);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(matchService.getGroupsFromCustomIds(request)).thenReturn(response);
 
         //then
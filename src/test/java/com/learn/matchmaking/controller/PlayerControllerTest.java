@@ -5,10 +5,13 @@ import com.learn.matchmaking.config.SecurityConfig;
 import com.learn.matchmaking.constant.PlayerConstants;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
 import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.dto.PlayerPage;
 import com.learn.matchmaking.exception.PlayerNotFoundException;
 import com.learn.matchmaking.model.MyUserDetails;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.service.JWTService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import com.learn.matchmaking.service.MyUserDetailsService;
 import com.learn.matchmaking.service.PlayerService;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,8 +26,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -45,6 +52,7 @@ class PlayerControllerTest {
     private String username;
     private String testToken;
     private UserDetails userDetails;
+    private Claims claims;
 
     @Autowired
     public PlayerControllerTest(MockMvc mockMvc, ObjectMapper objectMapper) {
@@ -62,6 +70,7 @@ class PlayerControllerTest {
         users.setUsername(username);
         users.setPassword("Testpassword");
         userDetails = new MyUserDetails(users);
+        claims = Jwts.claims().subject(username).build();
     }
 
     @Test
@@ -89,9 +98,9 @@ class PlayerControllerTest {
         List<PlayerBasicDTO> players = List.of(player1DTO, player2DTO);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.getPlayers()).thenReturn(players);
 
         //then
@@ -110,9 +119,9 @@ class PlayerControllerTest {
         List<PlayerBasicDTO> players = Collections.emptyList();
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.getPlayers()).thenReturn(players);
 
         //then
@@ -122,6 +131,78 @@ class PlayerControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void canGetPlayerPage() throws Exception {
+
+        //given
+        PlayerBasicDTO player1DTO = new PlayerBasicDTO();
+        player1DTO.setId("672a1754b2eeb2739fa1bb04");
+        player1DTO.setName("Player1");
+        PlayerPage page = new PlayerPage(List.of(player1DTO), player1DTO.getId(), null);
+
+        //when
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
+        when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
+        when(playerService.getPlayers("672a1754b2eeb2739fa1bb03", 1)).thenReturn(page);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/players")
+                        .param("after", "672a1754b2eeb2739fa1bb03")
+                        .param("limit", "1")
+                        .header("Authorization", "Bearer " + testToken ))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.players[0].name").value(player1DTO.getName()))
+                .andExpect(jsonPath("$.nextCursor").value(player1DTO.getId()));
+    }
+
+    @Test
+    void canNotGetPlayerPageWithInvalidCursor() throws Exception {
+
+        //given
+        PlayerPage page = new PlayerPage(List.of(), null, PlayerConstants.INVALID_CURSOR_MESSAGE + "bad");
+
+        //when
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
+        when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
+        when(playerService.getPlayers("bad", PlayerConstants.DEFAULT_PAGE_SIZE)).thenReturn(page);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/players")
+                        .param("after", "bad")
+                        .header("Authorization", "Bearer " + testToken ))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(page.getMessage()));
+    }
+
+    @Test
+    void canStreamPlayers() throws Exception {
+
+        //given
+        PlayerBasicDTO player1DTO = new PlayerBasicDTO("kjdshfGIkhvfytvf", "Player1", Map.of("strength", 85));
+        PlayerBasicDTO player2DTO = new PlayerBasicDTO("auebvgavbiu", "Player2", Map.of("strength", 75));
+
+        //when
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
+        when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<PlayerBasicDTO> action = invocation.getArgument(0);
+            action.accept(player1DTO);
+            action.accept(player2DTO);
+            return null;
+        }).when(playerService).forEachPlayer(any());
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/players/stream")
+                        .header("Authorization", "Bearer " + testToken ))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(player1DTO) + "\n"
+                        + objectMapper.writeValueAsString(player2DTO) + "\n"));
+    }
+
     @Test
     void canGetPlayer() throws Exception {
 
@@ -138,9 +219,9 @@ class PlayerControllerTest {
         );
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.getPlayer(playerBasicDTO.getName())).thenReturn(playerBasicDTO);
 
         //then
@@ -158,9 +239,9 @@ class PlayerControllerTest {
         String name = "Player1";
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.getPlayer(name)).thenThrow(new PlayerNotFoundException("Player with name " + name + " not found"));
 
         //then
@@ -196,9 +277,9 @@ class PlayerControllerTest {
         String playersJSON = objectMapper.writeValueAsString(players);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.registerPlayers(players)).thenReturn(PlayerConstants.SAVE_SUCCESS_MESSAGE);
 
         //then
@@ -236,9 +317,9 @@ class PlayerControllerTest {
         String playersJSON = objectMapper.writeValueAsString(players);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.registerPlayers(players)).thenReturn(failureMessage);
 
         //then
@@ -268,9 +349,9 @@ class PlayerControllerTest {
         String playersJSON = objectMapper.writeValueAsString(players);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.updatePlayers(players)).thenReturn(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
 
         //then
@@ -301,9 +382,9 @@ class PlayerControllerTest {
         String playersJSON = objectMapper.writeValueAsString(players);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.updatePlayers(players)).thenReturn(failureMessage);
 
         //then
@@ -324,9 +405,9 @@ class PlayerControllerTest {
         String playersJSON = objectMapper.writeValueAsString(playerIds);
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.deletePlayers(playerIds)).thenReturn(PlayerConstants.DELETE_SUCCESSFUL_MESSAGE);
 
         //then
@@ -348,9 +429,9 @@ class PlayerControllerTest {
         String failureMessage = PlayerConstants.DELETE_FAILURE_MESSAGE + "Player2";
 
         //when
-        when(jwtService.extractUsername(testToken)).thenReturn(username);
+        when(jwtService.verify(testToken)).thenReturn(Optional.of(claims));
         when(myUserDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(testToken, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
         when(playerService.deletePlayers(playerIds)).thenReturn(failureMessage);
 
         //then
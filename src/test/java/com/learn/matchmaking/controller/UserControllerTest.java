@@ -1,13 +1,17 @@
 package com.learn.matchmaking.controller;
 
 import com.learn.matchmaking.constant.UserConstants;
+import com.learn.matchmaking.dto.RefreshTokenRequest;
+import com.learn.matchmaking.dto.TokenResponse;
 import com.learn.matchmaking.dto.UsersDTO;
+import com.learn.matchmaking.exception.PasswordWorkRejectedException;
 import com.learn.matchmaking.service.UsersService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -81,4 +85,57 @@ class UserControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
         assertThat(response.getBody()).isEqualTo(UserConstants.USER_LOGIN_FAILED_MESSAGE);
     }
-}
\ No newline at end of file
+
+    @Test
+    void canNotIssueTokens() {
+
+        UsersDTO user = createMockUser();
+
+        when(usersService.issueTokens(user)).thenThrow(new UsernameNotFoundException(UserConstants.USER_LOGIN_FAILED_MESSAGE));
+
+        ResponseEntity<TokenResponse> response = userController.issueTokens(user);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(response.getBody().getMessage()).isEqualTo(UserConstants.USER_LOGIN_FAILED_MESSAGE);
+    }
+
+    @Test
+    void canRefreshTokens() {
+
+        TokenResponse tokens = new TokenResponse("dummyToken", "dummyRefreshToken", null);
+
+        when(usersService.refreshTokens("oldRefreshToken")).thenReturn(tokens);
+
+        ResponseEntity<TokenResponse> response = userController.refreshTokens(new RefreshTokenRequest("oldRefreshToken"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(tokens);
+    }
+
+    @Test
+    void canNotRefreshTokens() {
+
+        when(usersService.refreshTokens("usedRefreshToken"))
+                .thenReturn(new TokenResponse(null, null, UserConstants.REFRESH_TOKEN_INVALID_MESSAGE));
+
+        ResponseEntity<TokenResponse> response = userController.refreshTokens(new RefreshTokenRequest("usedRefreshToken"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getBody().getMessage()).isEqualTo(UserConstants.REFRESH_TOKEN_INVALID_MESSAGE);
+    }
+
+    @Test
+    void canNotLoginUserWhenPasswordWorkIsSaturated() {
+
+        UsersDTO user = createMockUser();
+
+        when(usersService.verifyUser(user))
+                .thenThrow(new PasswordWorkRejectedException(UserConstants.AUTHENTICATION_BUSY_MESSAGE, 2));
+
+        ResponseEntity<String> response = userController.loginUser(user);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody()).isEqualTo(UserConstants.AUTHENTICATION_BUSY_MESSAGE);
+    }
+}
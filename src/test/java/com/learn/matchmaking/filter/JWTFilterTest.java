@@ -2,6 +2,8 @@ package com.learn.matchmaking.filter;
 
 import com.learn.matchmaking.service.JWTService;
 import com.learn.matchmaking.service.MyUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,15 +11,20 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,12 +37,13 @@ class JWTFilterTest {
     @Mock private HttpServletResponse response;
     @Mock private FilterChain chain;
     @Mock private UserDetails userDetails;
-    @InjectMocks private JWTFilter jwtFilter;
+    private JWTFilter jwtFilter;
 
     @BeforeEach
     void setUp() {
 
         SecurityContextHolder.clearContext();
+        jwtFilter = new JWTFilter(jwtService, userDetailsService, true, List.of("/players/delete/**"));
     }
 
     @Test
@@ -43,16 +51,18 @@ class JWTFilterTest {
 
         String token = "dummyToken";
         String username = "testAdmin";
+        Claims claims = Jwts.claims().subject(username).build();
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
+        when(jwtService.verify(token)).thenReturn(Optional.of(claims));
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(token, userDetails)).thenReturn(true);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(true);
 
         jwtFilter.doFilterInternal(request, response, chain);
 
         verify(userDetailsService).loadUserByUsername(username);
-        verify(jwtService).validateToken(token, userDetails);
+        verify(jwtService).validateToken(claims, userDetails);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         verify(chain).doFilter(request, response);
     }
 
@@ -60,16 +70,55 @@ class JWTFilterTest {
     void doFilterInternal_inValidToken() throws ServletException, IOException {
 
         String token = "invalidToken";
-        String username = "testAdmin";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.validateToken(token, userDetails)).thenReturn(false);
+        when(jwtService.verify(token)).thenReturn(Optional.empty());
+
+        jwtFilter.doFilterInternal(request, response, chain);
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_claimsCarriedAuthoritiesSkipUserLookup() throws ServletException, IOException {
+
+        String token = "claimsToken";
+        Claims claims = Jwts.claims().subject("gameServer").add("authorities", List.of("USER")).build();
+        UserDetails principal = User.withUsername("gameServer").password("").authorities("USER").build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(request.getServletPath()).thenReturn("/match/pool");
+        when(jwtService.verify(token)).thenReturn(Optional.of(claims));
+        when(jwtService.principalFrom(claims)).thenReturn(Optional.of(principal));
+        when(jwtService.validateToken(claims, principal)).thenReturn(true);
+
+        jwtFilter.doFilterInternal(request, response, chain);
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertEquals(List.of(new SimpleGrantedAuthority("USER")),
+                List.copyOf(SecurityContextHolder.getContext().getAuthentication().getAuthorities()));
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_userLookupPathLoadsUser() throws ServletException, IOException {
+
+        String token = "claimsToken";
+        Claims claims = Jwts.claims().subject("gameServer").add("authorities", List.of("USER")).build();
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(request.getServletPath()).thenReturn("/players/delete");
+        when(jwtService.verify(token)).thenReturn(Optional.of(claims));
+        when(userDetailsService.loadUserByUsernameUncached("gameServer")).thenReturn(userDetails);
+        when(jwtService.validateToken(claims, userDetails)).thenReturn(false);
 
         jwtFilter.doFilterInternal(request, response, chain);
 
-        verify(jwtService).validateToken(token, userDetails);
+        verify(jwtService, never()).principalFrom(claims);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(chain).doFilter(request, response);
     }
-}
\ No newline at end of file
+}
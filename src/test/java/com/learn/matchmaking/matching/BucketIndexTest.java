@@ -0,0 +1,58 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BucketIndexTest {
+
+    @Test
+    void canInsertRemoveAndFindNearestBucket() {
+
+        //given
+        BucketIndex index = new BucketIndex(4, 10.0);
+        index.insert(0, 12);
+        index.insert(1, 15);
+        index.insert(2, 47);
+        index.insert(3, -3);
+
+        //when
+        index.remove(1);
+
+        //then
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.contains(1)).isFalse();
+        assertThat(index.bucketKey(-3)).isEqualTo(-1L);
+        assertThat(index.nearest(1, 0)).isEqualTo(1L);
+        assertThat(index.nearest(3, 1)).isEqualTo(4L);
+        assertThat(index.nearest(3, 0)).isNull();
+        assertThat(index.nearest(0, 1)).isEqualTo(-1L);
+    }
+
+    @Test
+    void canPollEveryRowOfABucketAndDropIt() {
+
+        //given
+        BucketIndex index = new BucketIndex(3, 5.0);
+        index.insert(0, 1);
+        index.insert(1, 2);
+        index.insert(2, 3);
+
+        //when
+        int first = index.poll(0);
+        int second = index.poll(0);
+        int third = index.poll(0);
+
+        //then
+        assertThat(first + second + third).isEqualTo(3);
+        assertThat(index.size()).isZero();
+        assertThat(index.nearest(0, 100)).isNull();
+    }
+
+    @Test
+    void cannotCreateIndexWithoutPositiveWidth() {
+
+        assertThatThrownBy(() -> new BucketIndex(1, 0.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
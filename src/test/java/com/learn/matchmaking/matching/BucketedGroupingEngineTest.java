@@ -0,0 +1,131 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BucketedGroupingEngineTest {
+
+    private static final Instant NOW = Instant.parse("2024-11-05T12:00:00Z");
+
+    private final BucketedGroupingEngine engine =
+            new BucketedGroupingEngine(0, 10_000, 5, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    private MatchRequest createRequest() {
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setEngine(MatchEngine.BUCKETED);
+        request.setBucketWidth(10.0);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "isVIP", true)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.6, "isVIP", 0.4)));
+
+        return request;
+    }
+
+    private Player createPlayer(String id, int strength, long waitedSeconds) {
+
+        Player player = new Player(id, "Player" + id, new HashMap<>(Map.of("strength", strength)), true);
+        player.setSearchingSince(NOW.minusSeconds(waitedSeconds));
+
+        return player;
+    }
+
+    private List<List<String>> formGroups(MatchRequest request, List<Player> players) {
+
+        ScoringPlan plan = ScoringPlan.compile(request);
+        List<List<PlayerBasicDTO>> groups = engine.formGroups(plan, PlayerColumns.of(players, plan.attributeKeys()),
+                request);
+
+        return groups.stream()
+                .map(group -> group.stream().map(PlayerBasicDTO::getId).sorted().toList())
+                .toList();
+    }
+
+    @Test
+    void canGroupPlayersFromTheSameBucket() {
+
+        //given
+        List<Player> players = List.of(
+                createPlayer("1", 81, 0),
+                createPlayer("2", 42, 0),
+                createPlayer("3", 85, 0),
+                createPlayer("4", 47, 0)
+        );
+
+        //when
+        List<List<String>> groups = formGroups(createRequest(), players);
+
+        //then
+        assertThat(groups).containsExactlyInAnyOrder(List.of("1", "3"), List.of("2", "4"));
+    }
+
+    @Test
+    void canWidenTheWindowForPlayersThatWaitedLonger() {
+
+        //given
+        List<Player> freshPlayers = List.of(createPlayer("1", 81, 0), createPlayer("2", 62, 0));
+        List<Player> waitingPlayers = List.of(createPlayer("1", 81, 25), createPlayer("2", 62, 0));
+
+        //when
+        List<List<String>> freshGroups = formGroups(createRequest(), freshPlayers);
+        List<List<String>> waitingGroups = formGroups(createRequest(), waitingPlayers);
+
+        //then
+        assertThat(freshGroups).isEmpty();
+        assertThat(waitingGroups).containsExactly(List.of("1", "2"));
+    }
+
+    @Test
+    void canLeaveIncompleteGroupsWaiting() {
+
+        //given
+        MatchRequest request = createRequest();
+        request.setGroupSize(3);
+        List<Player> players = List.of(
+                createPlayer("1", 80, 0),
+                createPlayer("2", 81, 0),
+                createPlayer("3", 82, 0),
+                createPlayer("4", 83, 0)
+        );
+
+        //when
+        List<List<String>> groups = formGroups(request, players);
+
+        //then
+        assertThat(groups).hasSize(1);
+        assertThat(groups.get(0)).hasSize(3);
+    }
+
+    @Test
+    void cannotBucketByCategoricalAttribute() {
+
+        //given
+        MatchRequest request = createRequest();
+        request.setBucketAttribute("isVIP");
+
+        //then
+        assertThatThrownBy(() -> formGroups(request, List.of(createPlayer("1", 80, 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void canDefaultBucketWidthToShareOfTarget() {
+
+        assertThat(BucketedGroupingEngine.bucketWidth(null, 2000)).isEqualTo(100.0);
+        assertThat(BucketedGroupingEngine.bucketWidth(-1.0, 4)).isEqualTo(1.0);
+        assertThat(BucketedGroupingEngine.bucketWidth(7.5, 2000)).isEqualTo(7.5);
+    }
+}
@@ -0,0 +1,104 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.model.Player;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the grouping engines on pools of 10k, 100k and 1M players: time per pool, and the
+ * mean spread of a group, i.e. the weighted relative range of every numeric target attribute
+ * within the group. Not part of the test suite; run with
+ * <pre>
+ * mvn test-compile
+ * java -Xmx4g --add-modules jdk.incubator.vector -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     com.learn.matchmaking.matching.GroupingEngineBenchmark [pool sizes...]
+ * </pre>
+ * where {@code cp.txt} is written by {@code mvn dependency:build-classpath -Dmdep.outputFile=cp.txt}.
+ */
+public class GroupingEngineBenchmark {
+
+    private static final int GROUP_SIZE = 4;
+
+    public static void main(String[] args) {
+
+        int[] poolSizes = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 100_000, 1_000_000};
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(GROUP_SIZE);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "speed", 85, "experiencePoints", 2000)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.4, "speed", 0.3, "experiencePoints", 0.3)));
+        ScoringPlan plan = ScoringPlan.compile(request);
+
+        List<GroupingEngine> engines = List.of(
+                new SortedGroupingEngine(ScoringEngine.sequential(ScoringKernels.scalar())),
+                new BucketedGroupingEngine(1, 10_000, 20, Clock.systemUTC()),
+                new KdTreeGroupingEngine(ScoringEngine.sequential(ScoringKernels.scalar())));
+
+        for (int poolSize : poolSizes) {
+
+            PlayerColumns columns = PlayerColumns.of(createPool(poolSize), plan.attributeKeys());
+            System.out.printf("players=%d%n", poolSize);
+            for (GroupingEngine engine : engines) {
+                measure(engine, plan, columns, request);
+            }
+        }
+    }
+
+    private static List<Player> createPool(int size) {
+
+        Random random = new Random(7);
+        List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            players.add(new Player(String.valueOf(i), "Player" + i, Map.of(
+                    "strength", 1 + random.nextInt(100),
+                    "speed", 1 + random.nextInt(100),
+                    "experiencePoints", random.nextInt(5_000)), true));
+        }
+        return players;
+    }
+
+    private static void measure(GroupingEngine engine, ScoringPlan plan, PlayerColumns columns, MatchRequest request) {
+
+        int rounds = Math.max(3, 2_000_000 / columns.size());
+        List<List<PlayerBasicDTO>> groups = List.of();
+        for (int round = 0; round < rounds; round++) {
+            groups = engine.formGroups(plan, columns, request);
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            groups = engine.formGroups(plan, columns, request);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / rounds;
+
+        System.out.printf("  %-9s %10.2f ms/pool  %d groups  mean spread %.4f%n", engine.engine(), millis,
+                groups.size(), meanSpread(plan, groups));
+    }
+
+    private static double meanSpread(ScoringPlan plan, List<List<PlayerBasicDTO>> groups) {
+
+        double total = 0;
+        for (List<PlayerBasicDTO> group : groups) {
+            for (String key : plan.attributeKeys()) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (PlayerBasicDTO player : group) {
+                    double value = ((Number) player.getAttributes().get(key)).doubleValue();
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                total += plan.weight(key) * (max - min) / plan.numericTarget(key);
+            }
+        }
+        return groups.isEmpty() ? 0 : total / groups.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchEngine;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KdTreeGroupingEngineTest {
+
+    private final KdTreeGroupingEngine engine = new KdTreeGroupingEngine(ScoringEngine.sequential(ScoringKernels.scalar()));
+
+    private MatchRequest createRequest() {
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setEngine(MatchEngine.KD_TREE);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "speed", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.5, "speed", 0.5)));
+
+        return request;
+    }
+
+    private List<List<String>> formGroups(MatchRequest request, List<Player> players) {
+
+        ScoringPlan plan = ScoringPlan.compile(request);
+        List<List<PlayerBasicDTO>> groups = engine.formGroups(plan, PlayerColumns.of(players, plan.attributeKeys()),
+                request);
+
+        return groups.stream()
+                .map(group -> group.stream().map(PlayerBasicDTO::getId).toList())
+                .toList();
+    }
+
+    private Player createPlayer(String id, int strength, int speed) {
+
+        return new Player(id, "Player" + id, new HashMap<>(Map.of("strength", strength, "speed", speed)), true);
+    }
+
+    @Test
+    void canGroupNearestNeighboursStartingClosestToTarget() {
+
+        //given
+        List<Player> players = List.of(
+                createPlayer("1", 20, 25),
+                createPlayer("2", 79, 81),
+                createPlayer("3", 22, 21),
+                createPlayer("4", 70, 72),
+                createPlayer("5", 50, 50)
+        );
+
+        //when
+        List<List<String>> groups = formGroups(createRequest(), players);
+
+        //then
+        assertThat(groups).containsExactly(List.of("2", "4"), List.of("5", "1"), List.of("3"));
+    }
+
+    @Test
+    void cannotFormGroupsWithoutNumericTarget() {
+
+        //given
+        MatchRequest request = createRequest();
+        request.setTargetAttributes(new HashMap<>(Map.of("isVIP", true)));
+        request.setAttributeWeights(new HashMap<>(Map.of("isVIP", 1.0)));
+
+        //then
+        assertThatThrownBy(() -> formGroups(request, List.of(createPlayer("1", 1, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
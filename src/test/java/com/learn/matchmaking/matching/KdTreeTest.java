@@ -0,0 +1,98 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KdTreeTest {
+
+    private static int[] bruteForce(KdTree tree, int rows, double[] query, int exclude, int k) {
+
+        return IntStream.range(0, rows)
+                .filter(row -> row != exclude && tree.isLive(row))
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(row -> distance(tree, row, query))
+                        .thenComparingInt(row -> row))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static double distance(KdTree tree, int row, double[] query) {
+
+        double distance = 0;
+        for (int dim = 0; dim < tree.dims(); dim++) {
+            double delta = query[dim] - tree.coordinate(row, dim);
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+    @Test
+    void canFindTheSameNeighboursAsABruteForceScan() {
+
+        //given
+        Random random = new Random(11);
+        double[] coords = new double[3_000 * 3];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = random.nextInt(50);
+        }
+        KdTree tree = KdTree.build(coords, 3);
+        for (int row = 0; row < 3_000; row += 3) {
+            tree.delete(row);
+        }
+        for (int i = 0; i < 2_000; i++) {
+            tree.insert(new double[]{random.nextInt(50), random.nextInt(50), random.nextInt(50)});
+        }
+
+        for (int query = 0; query < 200; query++) {
+
+            //when
+            double[] point = {random.nextInt(50), random.nextInt(50), random.nextInt(50)};
+            int[] neighbours = new int[8];
+            int found = tree.nearest(point, -1, neighbours);
+
+            //then
+            assertThat(found).isEqualTo(8);
+            assertThat(neighbours).containsExactly(bruteForce(tree, 5_000, point, -1, 8));
+        }
+        assertThat(tree.size()).isEqualTo(4_000);
+    }
+
+    @Test
+    void canSkipDeletedRowsAndTheQueriedRow() {
+
+        //given
+        KdTree tree = KdTree.build(new double[]{0, 1, 2, 3, 10}, 1);
+        tree.delete(1);
+
+        //when
+        int[] neighbours = new int[3];
+        int found = tree.nearest(2, neighbours);
+
+        //then
+        assertThat(found).isEqualTo(3);
+        assertThat(neighbours).containsExactly(3, 0, 4);
+    }
+
+    @Test
+    void canReturnFewerNeighboursThanRequested() {
+
+        //given
+        KdTree tree = KdTree.build(new double[]{5, 7}, 1);
+        tree.delete(0);
+
+        //when
+        int[] neighbours = new int[4];
+        int found = tree.nearest(new double[]{0}, -1, neighbours);
+
+        //then
+        assertThat(found).isEqualTo(1);
+        assertThat(Arrays.copyOf(neighbours, found)).containsExactly(1);
+    }
+}
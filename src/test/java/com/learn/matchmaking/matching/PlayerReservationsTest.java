@@ -0,0 +1,116 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayerReservationsTest {
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-11-05T12:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+
+            return now;
+        }
+    }
+
+    @Test
+    void canClaimAPlayerOnlyOnceUntilReleased() {
+
+        //given
+        PlayerReservations reservations = new PlayerReservations(1_000, Clock.systemUTC());
+        long first = reservations.newEpoch();
+        long second = reservations.newEpoch();
+
+        //when
+        boolean firstClaim = reservations.claim("1", first);
+        boolean secondClaim = reservations.claim("1", second);
+        reservations.release("1", second);
+        boolean stillClaimed = reservations.isClaimed("1");
+        reservations.release("1", first);
+
+        //then
+        assertThat(firstClaim).isTrue();
+        assertThat(secondClaim).isFalse();
+        assertThat(stillClaimed).isTrue();
+        assertThat(reservations.claim("1", second)).isTrue();
+    }
+
+    @Test
+    void canTakeOverAnExpiredClaimAndPurgeIt() {
+
+        //given
+        MutableClock clock = new MutableClock();
+        PlayerReservations reservations = new PlayerReservations(1_000, clock);
+        reservations.claim("1", reservations.newEpoch());
+        reservations.claim("2", reservations.newEpoch());
+
+        //when
+        clock.now = clock.now.plus(Duration.ofSeconds(2));
+        boolean takenOver = reservations.claim("1", reservations.newEpoch());
+
+        //then
+        assertThat(takenOver).isTrue();
+        assertThat(reservations.isClaimed("2")).isFalse();
+        assertThat(reservations.size()).isEqualTo(1);
+    }
+
+    @Test
+    void canGrantEveryPlayerToExactlyOneConcurrentClaimer() throws Exception {
+
+        //given
+        PlayerReservations reservations = new PlayerReservations(60_000, Clock.systemUTC());
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        //when
+        try {
+            List<Future<?>> claimers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                claimers.add(executor.submit(() -> {
+                    long epoch = reservations.newEpoch();
+                    for (int player = 0; player < 10_000; player++) {
+                        if (reservations.claim(String.valueOf(player), epoch)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> claimer : claimers) {
+                claimer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //then
+        assertThat(granted.get()).isEqualTo(10_000);
+    }
+}
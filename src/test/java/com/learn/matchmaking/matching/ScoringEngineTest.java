@@ -0,0 +1,57 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.model.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringEngineTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+
+        pool.shutdown();
+    }
+
+    @Test
+    void canScoreAndOrderInParallelLikeTheSequentialPath() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "speed", 85, "isVIP", true)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.4, "speed", 0.4, "isVIP", 0.2)));
+        ScoringPlan plan = ScoringPlan.compile(request);
+
+        Random random = new Random(11);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 60_001; i++) {
+            players.add(new Player(String.valueOf(i), "Player" + i, Map.of(
+                    "strength", random.nextInt(100),
+                    "speed", random.nextInt(100),
+                    "isVIP", random.nextBoolean()), true));
+        }
+        PlayerColumns columns = PlayerColumns.of(players, plan.attributeKeys());
+
+        ScoringEngine sequential = ScoringEngine.sequential(ScoringKernels.scalar());
+        ScoringEngine parallel = new ScoringEngine(ScoringKernels.select(true), pool, 1);
+
+        //when
+        double[] expectedScores = sequential.score(plan, columns);
+        double[] actualScores = parallel.score(plan, columns);
+
+        //then
+        assertThat(actualScores).containsExactly(expectedScores);
+        assertThat(parallel.order(actualScores)).containsExactly(sequential.order(expectedScores));
+    }
+}
@@ -0,0 +1,73 @@
+package com.learn.matchmaking.matching;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the scalar and SIMD numeric kernels. Not part of the test suite; run with
+ * <pre>
+ * mvn test-compile
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes \
+ *     com.learn.matchmaking.matching.ScoringKernelBenchmark [rows] [attributes]
+ * </pre>
+ */
+public class ScoringKernelBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    public static void main(String[] args) {
+
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int attributes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        Random random = new Random(7);
+        double[][] columns = new double[attributes][rows];
+        long[][] presence = new long[attributes][];
+        for (int attribute = 0; attribute < attributes; attribute++) {
+            presence[attribute] = Bitmaps.create(rows);
+            for (int row = 0; row < rows; row++) {
+                columns[attribute][row] = 1 + random.nextInt(5_000);
+                if (random.nextInt(20) != 0) {
+                    Bitmaps.set(presence[attribute], row);
+                }
+            }
+        }
+
+        System.out.printf("rows=%d attributes=%d%n", rows, attributes);
+        double scalar = measure("scalar", ScoringKernels.scalar(), columns, presence, rows);
+        if (ScoringKernels.isVectorAvailable()) {
+            double vector = measure("vector", ScoringKernels.vector(), columns, presence, rows);
+            System.out.printf("speedup: %.2fx%n", scalar / vector);
+        } else {
+            System.out.println("vector: skipped, jdk.incubator.vector is not enabled");
+        }
+    }
+
+    private static double measure(String name, ScoringKernel kernel, double[][] columns, long[][] presence, int rows) {
+
+        double[] scores = new double[rows];
+        double checksum = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            checksum += run(kernel, columns, presence, scores);
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            checksum += run(kernel, columns, presence, scores);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        System.out.printf("%s: %.3f ms/pool (checksum %.3f)%n", name, millis, checksum);
+        return millis;
+    }
+
+    private static double run(ScoringKernel kernel, double[][] columns, long[][] presence, double[] scores) {
+
+        Arrays.fill(scores, 0.0);
+        for (int attribute = 0; attribute < columns.length; attribute++) {
+            kernel.accumulateNumeric(columns[attribute], presence[attribute], 2_500, 0.25, scores);
+        }
+        return scores[scores.length / 2];
+    }
+}
@@ -0,0 +1,44 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScoringKernelTest {
+
+    @Test
+    void canSelectScalarKernelWhenVectorIsDisabled() {
+
+        assertThat(ScoringKernels.select(false)).isSameAs(ScoringKernels.scalar());
+    }
+
+    @Test
+    void canScoreIdenticallyWithVectorAndScalarKernels() {
+
+        assumeTrue(ScoringKernels.isVectorAvailable(), "jdk.incubator.vector is not enabled");
+
+        //given
+        int rows = 1_003;
+        Random random = new Random(42);
+        double[] numbers = new double[rows];
+        long[] presence = Bitmaps.create(rows);
+        for (int row = 0; row < rows; row++) {
+            if (row % 7 != 0) {
+                numbers[row] = row % 11 == 0 ? 80 : random.nextInt(200) - 20;
+                Bitmaps.set(presence, row);
+            }
+        }
+        double[] scalarScores = new double[rows];
+        double[] vectorScores = new double[rows];
+
+        //when
+        ScoringKernels.scalar().accumulateNumeric(numbers, presence, 80, 0.4, scalarScores);
+        ScoringKernels.vector().accumulateNumeric(numbers, presence, 80, 0.4, vectorScores);
+
+        //then
+        assertThat(vectorScores).containsExactly(scalarScores);
+    }
+}
@@ -0,0 +1,121 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.model.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ScoringPlanTest {
+
+    private MatchRequest createRequest() {
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "isVIP", true)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.6, "isVIP", 0.4)));
+
+        return request;
+    }
+
+    @Test
+    void canScoreNumericAndCategoricalAttributes() {
+
+        //given
+        ScoringPlan plan = ScoringPlan.compile(createRequest());
+
+        //when
+        double exact = plan.score(Map.of("strength", 80, "isVIP", true));
+        double partial = plan.score(Map.of("strength", 100, "isVIP", false));
+        double missing = plan.score(Map.of("speed", 90));
+
+        //then
+        assertThat(exact).isEqualTo(1.0);
+        assertThat(partial).isCloseTo((0.8 * 0.6) / 1.0, within(1e-12));
+        assertThat(missing).isEqualTo(0.0);
+    }
+
+    @Test
+    void canTreatEqualNumbersOfDifferentTypesAsExactMatch() {
+
+        //given
+        MatchRequest request = createRequest();
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 0, "isVIP", true)));
+        ScoringPlan plan = ScoringPlan.compile(request);
+
+        //when
+        double score = plan.score(Map.of("strength", 0.0, "isVIP", true));
+
+        //then
+        assertThat(score).isEqualTo(1.0);
+    }
+
+    @Test
+    void canOrderPlayersByScoreKeepingTiesStable() {
+
+        //given
+        ScoringPlan plan = ScoringPlan.compile(createRequest());
+        List<Player> players = List.of(
+                new Player("1", "Player1", Map.of("strength", 40, "isVIP", false), true),
+                new Player("2", "Player2", Map.of("strength", 80, "isVIP", true), true),
+                new Player("3", "Player3", Map.of("strength", 40, "isVIP", false), true),
+                new Player("4", "Player4", Map.of("strength", 70, "isVIP", true), true)
+        );
+
+        //when
+        int[] order = ScoreOrder.descending(plan.score(PlayerColumns.of(players, plan.attributeKeys())));
+
+        //then
+        assertThat(order).containsExactly(1, 3, 0, 2);
+    }
+
+    @Test
+    void canScoreColumnsLikeAttributeMaps() {
+
+        //given
+        ScoringPlan plan = ScoringPlan.compile(createRequest());
+        List<Player> players = List.of(
+                new Player("1", "Player1", Map.of("strength", 95.5, "isVIP", "yes"), true),
+                new Player("2", "Player2", Map.of("strength", "strong", "isVIP", true), true),
+                new Player("3", "Player3", null, true),
+                new Player("4", "Player4", Map.of("strength", 12L), true)
+        );
+
+        //when
+        double[] scores = plan.score(PlayerColumns.of(players));
+
+        //then
+        for (int row = 0; row < players.size(); row++) {
+            assertThat(scores[row]).isEqualTo(plan.score(players.get(row).getAttributes()));
+        }
+    }
+
+    @Test
+    void canOrderLargeInputsLikeAStableComparatorSort() {
+
+        //given
+        double[] scores = new double[10_000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (i * 7919 % 101) / 100.0;
+        }
+        Integer[] expected = new Integer[scores.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        Arrays.sort(expected, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        //when
+        int[] order = ScoreOrder.descending(scores);
+
+        //then
+        for (int i = 0; i < order.length; i++) {
+            assertThat(order[i]).isEqualTo(expected[i]);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.learn.matchmaking.matching;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchingPlayerIndexTest {
+
+    private static AttributeFilter anyOf(String attribute, Object... values) {
+
+        return new AttributeFilter(attribute, List.of(values), null, null);
+    }
+
+    @Test
+    void combinesValuesWithOrAndFiltersWithAnd() {
+
+        //given
+        SearchingPlayerIndex index = new SearchingPlayerIndex();
+        index.upsert("1", Map.of("region", "EU", "mode", "ranked"));
+        index.upsert("2", Map.of("region", "NA", "mode", "ranked"));
+        index.upsert("3", Map.of("region", "SA", "mode", "casual"));
+        index.upsert("4", Map.of("region", "SA", "mode", "ranked"));
+
+        //when
+        List<String> candidates = index.candidates(List.of(anyOf("region", "EU", "SA"), anyOf("mode", "ranked")));
+
+        //then
+        assertThat(candidates).containsExactly("1", "4");
+    }
+
+    @Test
+    void matchesNumbersByValueAndRange() {
+
+        //given
+        SearchingPlayerIndex index = new SearchingPlayerIndex();
+        index.upsert("1", Map.of("level", 5));
+        index.upsert("2", Map.of("level", 5.0));
+        index.upsert("3", Map.of("level", 20L));
+        index.upsert("4", Map.of("level", "high"));
+
+        //when
+        List<String> equal = index.candidates(List.of(anyOf("level", 5)));
+        List<String> inRange = index.candidates(List.of(new AttributeFilter("level", null, 5.0, 20.0)));
+        List<String> above = index.candidates(List.of(new AttributeFilter("level", null, 6.0, null)));
+
+        //then
+        assertThat(equal).containsExactly("1", "2");
+        assertThat(inRange).containsExactly("1", "2", "3");
+        assertThat(above).containsExactly("3");
+    }
+
+    @Test
+    void mergesChangedAttributesOfIndexedPlayersOnly() {
+
+        //given
+        SearchingPlayerIndex index = new SearchingPlayerIndex();
+        index.upsert("1", Map.of("region", "EU", "mode", "ranked"));
+
+        //when
+        boolean merged = index.merge("1", Map.of("region", "NA"));
+        boolean mergedMissing = index.merge("2", Map.of("region", "NA"));
+
+        //then
+        assertThat(merged).isTrue();
+        assertThat(mergedMissing).isFalse();
+        assertThat(index.candidates(List.of(anyOf("region", "NA"), anyOf("mode", "ranked")))).containsExactly("1");
+        assertThat(index.candidates(List.of(anyOf("region", "EU")))).isEmpty();
+        assertThat(index.contains("2")).isFalse();
+    }
+
+    @Test
+    void reindexesUpdatedPlayersAndReusesSlotsOfRemovedOnes() {
+
+        //given
+        SearchingPlayerIndex index = new SearchingPlayerIndex();
+        index.upsert("1", Map.of("region", "EU", "level", 10));
+        index.upsert("2", Map.of("region", "EU", "level", 10));
+
+        //when
+        index.upsert("1", Map.of("region", "NA", "level", 30));
+        index.remove("2");
+        index.upsert("3", Map.of("region", "EU"));
+
+        //then
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.candidates(List.of(anyOf("region", "EU")))).containsExactly("3");
+        assertThat(index.candidates(List.of(new AttributeFilter("level", null, null, 15.0)))).isEmpty();
+        assertThat(index.candidates(List.of(anyOf("region", "NA"), new AttributeFilter("level", null, 20.0, null))))
+                .containsExactly("1");
+    }
+
+    @Test
+    void agreesWithFilteringEveryPlayer() {
+
+        //given
+        SearchingPlayerIndex index = new SearchingPlayerIndex();
+        Map<String, Map<String, Object>> players = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+
+            String id = String.valueOf(random.nextInt(1_500));
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                players.remove(id);
+                continue;
+            }
+            Map<String, Object> attributes = new HashMap<>();
+            if (random.nextInt(5) > 0) attributes.put("region", List.of("EU", "NA", "SA").get(random.nextInt(3)));
+            if (random.nextInt(5) > 0) attributes.put("level", random.nextInt(50));
+            if (random.nextInt(5) > 0) attributes.put("isVIP", random.nextBoolean());
+            index.upsert(id, attributes);
+            players.put(id, attributes);
+        }
+        List<AttributeFilter> filters = List.of(anyOf("region", "EU", "SA"),
+                new AttributeFilter("level", null, 10.0, 35.0), anyOf("isVIP", true));
+
+        //when
+        List<String> candidates = index.candidates(filters);
+
+        //then
+        assertThat(candidates).containsExactlyInAnyOrderElementsOf(players.entrySet().stream()
+                .filter(player -> AttributeFilters.matches(filters, player.getValue()))
+                .map(Map.Entry::getKey)
+                .toList());
+    }
+}
@@ -0,0 +1,120 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void canRunOneComputationForCallersArrivingWhileItRuns() throws InterruptedException {
+
+        //given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch leaderComputing = new CountDownLatch(1);
+        CountDownLatch followerJoined = new CountDownLatch(1);
+
+        //when
+        CompletableFuture<SingleFlight.Share<Integer>> leader = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("pool", () -> {
+                    leaderComputing.countDown();
+                    await(followerJoined);
+                    return computations.incrementAndGet();
+                }));
+        leaderComputing.await();
+        CompletableFuture<Object> follower = joinFlight(singleFlight, computations::incrementAndGet);
+        followerJoined.countDown();
+        SingleFlight.Share<Integer> leaderShare = leader.join();
+        SingleFlight.Share<Integer> later = singleFlight.execute("pool", computations::incrementAndGet);
+
+        //then
+        assertThat(leaderShare.isLeader()).isTrue();
+        assertThat(leaderShare.participants()).isEqualTo(2);
+        SingleFlight.Share<?> followerShare = (SingleFlight.Share<?>) follower.join();
+        assertThat(followerShare.seat()).isEqualTo(1);
+        assertThat(followerShare.value()).isEqualTo(1);
+        assertThat(later.isLeader()).isTrue();
+        assertThat(later.value()).isEqualTo(2);
+        assertThat(computations.get()).isEqualTo(2);
+    }
+
+    @Test
+    void canPassTheFailureToEveryParticipant() throws InterruptedException {
+
+        //given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch leaderComputing = new CountDownLatch(1);
+        CountDownLatch followerJoined = new CountDownLatch(1);
+
+        //when
+        CompletableFuture<SingleFlight.Share<Integer>> leader = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("pool", () -> {
+                    leaderComputing.countDown();
+                    await(followerJoined);
+                    throw new IllegalStateException("pool unavailable");
+                }));
+        leaderComputing.await();
+        CompletableFuture<Object> follower = joinFlight(singleFlight, () -> 7);
+        followerJoined.countDown();
+
+        //then
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("pool unavailable");
+        assertThat(follower.join()).isInstanceOf(IllegalStateException.class)
+                .hasFieldOrPropertyWithValue("message", "pool unavailable");
+    }
+
+    @Test
+    void canComputeAtOnceWithoutConcurrentCallers() {
+
+        //given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+        //when
+        SingleFlight.Share<Integer> share = singleFlight.execute("pool", () -> 7);
+
+        //then
+        assertThat(share.value()).isEqualTo(7);
+        assertThat(share.isLeader()).isTrue();
+        assertThat(share.participants()).isEqualTo(1);
+    }
+
+    /**
+     * Calls the flight from a new thread and returns once that thread is parked waiting for
+     * the leader, so it has joined the flight. The future receives the share, or the
+     * exception the call threw.
+     */
+    private static CompletableFuture<Object> joinFlight(SingleFlight<String, Integer> singleFlight,
+                                                        Supplier<Integer> computation) throws InterruptedException {
+
+        CompletableFuture<Object> outcome = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                outcome.complete(singleFlight.execute("pool", computation));
+            } catch (RuntimeException e) {
+                outcome.complete(e);
+            }
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING && !outcome.isDone()) {
+            Thread.sleep(1);
+        }
+        return outcome;
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.learn.matchmaking.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotSetTest {
+
+    private static BitSet slotsOf(SlotSet slotSet) {
+
+        BitSet slots = new BitSet();
+        slotSet.orInto(slots);
+        return slots;
+    }
+
+    @Test
+    void keepsSparseSlotsSortedAndUnique() {
+
+        //given
+        SlotSet slotSet = new SlotSet();
+
+        //when
+        slotSet.add(90_000);
+        slotSet.add(7);
+        slotSet.add(512);
+        slotSet.add(7);
+        slotSet.remove(512);
+        slotSet.remove(3);
+
+        //then
+        assertThat(slotsOf(slotSet).stream().toArray()).containsExactly(7, 90_000);
+    }
+
+    @Test
+    void holdsTheSameSlotsWhenItGrowsDenseAndThinsOutAgain() {
+
+        //given
+        SlotSet slotSet = new SlotSet();
+        IntStream.range(0, 1_000).forEach(slotSet::add);
+
+        //when
+        IntStream.range(0, 1_000).filter(slot -> slot % 100 != 0).forEach(slotSet::remove);
+
+        //then
+        assertThat(slotsOf(slotSet).stream().toArray()).containsExactly(0, 100, 200, 300, 400, 500, 600, 700, 800, 900);
+        IntStream.of(0, 100, 200, 300, 400, 500, 600, 700, 800, 900).forEach(slotSet::remove);
+        assertThat(slotSet.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,81 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.model.AttributeEntry;
+import com.learn.matchmaking.model.Player;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttributeIndexLayoutTest {
+
+    @Test
+    void storesAttributesAsKeyValuePairs() {
+
+        //given
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("strength", 85);
+        attributes.put("region", "EU");
+        Player player = new Player("1", "Player1", attributes, true);
+
+        //when
+        AttributeIndexLayout.apply(player);
+
+        //then
+        assertThat(player.getAttributeIndex())
+                .containsExactly(new AttributeEntry("strength", 85), new AttributeEntry("region", "EU"));
+    }
+
+    @Test
+    void rebuildsAttributeIndexWhenAttributesChange() {
+
+        //given
+        Update update = new Update().set("attributes.strength", 90).set("name", "$notAnExpression");
+
+        //when
+        UpdateDefinition pipeline = AttributeIndexLayout.withAttributeIndex(update);
+
+        //then
+        assertThat(pipeline).isInstanceOf(AggregationUpdate.class);
+        List<Document> stages = ((AggregationUpdate) pipeline).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(stages.get(0)).isEqualTo(new Document("$set", new Document("attributes.strength",
+                new Document("$literal", 90)).append("name", new Document("$literal", "$notAnExpression"))));
+        assertThat(stages.get(1)).isEqualTo(new Document("$set", new Document("attributeIndex",
+                new Document("$objectToArray", "$attributes"))));
+    }
+
+    @Test
+    void appendsRebuildToPipelineUpdatesSettingAttributes() {
+
+        //given
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set",
+                new Document("attributes.strength", new Document("$literal", 90)))));
+
+        //when
+        UpdateDefinition pipeline = AttributeIndexLayout.withAttributeIndex(update);
+
+        //then
+        List<Document> stages = ((AggregationUpdate) pipeline).toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(stages.size()).isEqualTo(2);
+        assertThat(stages.get(1)).isEqualTo(new Document("$set", new Document("attributeIndex",
+                new Document("$objectToArray", "$attributes"))));
+    }
+
+    @Test
+    void leavesUpdatesWithoutAttributesAlone() {
+
+        //given
+        Update update = new Update().set("isSearchingForMatch", false);
+
+        //then
+        assertThat(AttributeIndexLayout.withAttributeIndex(update)).isSameAs(update);
+    }
+}
@@ -0,0 +1,108 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.model.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerIndexManagerTest {
+
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private IndexOperations indexOps;
+
+    private static IndexInfo index(String name, String... keys) {
+
+        List<IndexField> fields = Arrays.stream(keys)
+                .map(key -> IndexField.create(key, Sort.Direction.ASC))
+                .toList();
+        return new IndexInfo(fields, name, false, false, "");
+    }
+
+    @Test
+    void createsPartialSearchingIndex() {
+
+        //given
+        PlayerIndexManager manager = new PlayerIndexManager(mongoTemplate, true, false);
+        when(mongoTemplate.indexOps(Player.class)).thenReturn(indexOps);
+        when(indexOps.getIndexInfo()).thenReturn(List.of(index("_id_", "_id"),
+                index(PlayerIndexManager.SEARCHING_INDEX, "isSearchingForMatch")));
+
+        //when
+        manager.ensureIndexes();
+
+        //then
+        verify(indexOps, times(1)).ensureIndex(any(Index.class));
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Player.class));
+        Index searching = manager.requiredIndexes().get(PlayerIndexManager.SEARCHING_INDEX);
+        assertThat(searching.getIndexOptions().get("partialFilterExpression").toString()).contains("isSearchingForMatch");
+    }
+
+    @Test
+    void backfillsAndIndexesAttributeLayout() {
+
+        //given
+        PlayerIndexManager manager = new PlayerIndexManager(mongoTemplate, true, true);
+        when(mongoTemplate.indexOps(Player.class)).thenReturn(indexOps);
+        when(indexOps.getIndexInfo()).thenReturn(List.of(
+                index(PlayerIndexManager.SEARCHING_INDEX, "isSearchingForMatch"),
+                index("attributeIndex.k_1_attributeIndex.v_1", "attributeIndex.k", "attributeIndex.v")));
+
+        //when
+        manager.ensureIndexes();
+
+        //then
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Player.class));
+        verify(indexOps, times(2)).ensureIndex(any(Index.class));
+    }
+
+    @Test
+    void failsWhenAnIndexCannotBeCreated() {
+
+        //given
+        PlayerIndexManager manager = new PlayerIndexManager(mongoTemplate, true, false);
+        when(mongoTemplate.indexOps(Player.class)).thenReturn(indexOps);
+        when(indexOps.ensureIndex(any(Index.class))).thenThrow(new UncategorizedMongoDbException("conflict", null));
+        when(indexOps.getIndexInfo()).thenReturn(List.of(index("_id_", "_id")));
+
+        //then
+        assertThatThrownBy(manager::ensureIndexes)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(PlayerIndexManager.SEARCHING_INDEX);
+    }
+
+    @Test
+    void skipsWhenIndexManagementIsDisabled() {
+
+        //given
+        PlayerIndexManager manager = new PlayerIndexManager(mongoTemplate, false, true);
+
+        //when
+        manager.ensureIndexes();
+
+        //then
+        verify(mongoTemplate, never()).indexOps(Player.class);
+    }
+}
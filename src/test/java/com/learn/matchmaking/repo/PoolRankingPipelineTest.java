@@ -0,0 +1,191 @@
+package com.learn.matchmaking.repo;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.dto.MatchRequest;
+import com.learn.matchmaking.matching.ScoringPlan;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PoolRankingPipelineTest {
+
+    private static ScoringPlan plan() {
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "speed", 60.5, "isVIP", true,
+                "region", "EU")));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.4, "speed", 0.3, "isVIP", 0.2,
+                "region", 0.1)));
+        return ScoringPlan.compile(request);
+    }
+
+    @Test
+    void buildsMatchProjectScoreSortLimitStages() {
+
+        //given
+        ScoringPlan scoringPlan = plan();
+
+        //when
+        List<Document> stages = PoolRankingPipeline.build(scoringPlan, 50).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        //then
+        assertThat(stages).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$project", "$addFields", "$sort", "$limit", "$project");
+        assertThat(stages.get(0).get("$match")).isEqualTo(new Document("isSearchingForMatch", true));
+        assertThat(stages.get(1).get("$project", Document.class).keySet())
+                .contains("name", "searchingSince", "attributes.strength", "attributes.region");
+        assertThat(stages.get(3).get("$sort")).isEqualTo(new Document("_score", -1).append("_id", 1));
+        assertThat(stages.get(4).get("$limit")).isEqualTo(50);
+    }
+
+    @Test
+    void leavesOutLimitWhenUnlimited() {
+
+        //when
+        List<Document> stages = PoolRankingPipeline.build(plan(), 0).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        //then
+        assertThat(stages).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$project", "$addFields", "$sort", "$project");
+    }
+
+    @Test
+    void matchesRequiredAttributesAndProjectsThem() {
+
+        //given
+        List<AttributeFilter> filters = List.of(new AttributeFilter("mode", List.of("ranked", "duo"), null, null),
+                new AttributeFilter("speed", null, 10.0, 90.0));
+
+        //when
+        List<Document> stages = PoolRankingPipeline.build(plan(), filters, 0).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        //then
+        assertThat(stages.get(0).get("$match")).isEqualTo(new Document("$and", List.of(
+                new Document("isSearchingForMatch", true),
+                new Document("attributes.mode", new Document("$in", List.of("ranked", "duo"))),
+                new Document("attributes.speed", new Document("$gte", 10.0).append("$lte", 90.0)))));
+        assertThat(stages.get(1).get("$project", Document.class).keySet())
+                .contains("attributes.speed", "attributes.mode");
+    }
+
+    @Test
+    void matchesRequiredAttributesOnTheAttributeIndexInIndexLayout() {
+
+        //given
+        List<AttributeFilter> filters = List.of(new AttributeFilter("mode", List.of("ranked", "duo"), null, null),
+                new AttributeFilter("speed", null, 10.0, 90.0));
+
+        //when
+        List<Document> stages = PoolRankingPipeline.build(plan(), filters, 0, true).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        //then
+        assertThat(stages.get(0).get("$match")).isEqualTo(new Document("$and", List.of(
+                new Document("isSearchingForMatch", true),
+                new Document("attributeIndex", new Document("$elemMatch", new Document("k", "mode")
+                        .append("v", new Document("$in", List.of("ranked", "duo"))))),
+                new Document("attributeIndex", new Document("$elemMatch", new Document("k", "speed")
+                        .append("v", new Document("$gte", 10.0).append("$lte", 90.0)))))));
+        assertThat(stages.get(1).get("$project", Document.class).keySet())
+                .contains("attributes.speed", "attributes.mode");
+    }
+
+    @Test
+    void scoreExpressionAgreesWithScoringPlan() {
+
+        //given
+        ScoringPlan scoringPlan = plan();
+        Object expression = PoolRankingPipeline.scoreExpression(scoringPlan);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 500; i++) {
+
+            Map<String, Object> attributes = new HashMap<>();
+            if (random.nextInt(5) > 0) attributes.put("strength", random.nextInt(120));
+            if (random.nextInt(5) > 0) attributes.put("speed", random.nextDouble() * 100);
+            if (random.nextInt(5) > 0) attributes.put("isVIP", random.nextBoolean());
+            if (random.nextInt(5) > 0) attributes.put("region", random.nextBoolean() ? "EU" : "NA");
+            if (random.nextInt(10) == 0) attributes.put("strength", "strong");
+
+            //when
+            double score = ((Number) evaluate(expression, new Document("attributes", attributes), Map.of())).doubleValue();
+
+            //then
+            assertThat(score).isCloseTo(scoringPlan.score(attributes), within(1e-9));
+        }
+    }
+
+    /**
+     * Just enough of the aggregation expression language to run the score expression in memory.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object evaluate(Object expression, Document document, Map<String, Object> variables) {
+
+        if (expression instanceof String path && path.startsWith("$$")) {
+            return variables.get(path.substring(2));
+        }
+        if (expression instanceof String path && path.startsWith("$")) {
+            Object value = document;
+            for (String part : path.substring(1).split("\\.")) {
+                value = value instanceof Map<?, ?> map ? map.get(part) : null;
+            }
+            return value;
+        }
+        if (!(expression instanceof Document operation)) {
+            return expression;
+        }
+
+        String operator = operation.keySet().iterator().next();
+        Object argument = operation.get(operator);
+        if (operator.equals("$literal")) {
+            return argument;
+        }
+        if (operator.equals("$let")) {
+            Document let = (Document) argument;
+            Map<String, Object> scope = new HashMap<>(variables);
+            let.get("vars", Document.class).forEach((name, value) -> scope.put(name, evaluate(value, document, scope)));
+            return evaluate(let.get("in"), document, scope);
+        }
+        if (operator.equals("$cond")) {
+            List<Object> branches = (List<Object>) argument;
+            return Boolean.TRUE.equals(evaluate(branches.get(0), document, variables))
+                    ? evaluate(branches.get(1), document, variables)
+                    : evaluate(branches.get(2), document, variables);
+        }
+        if (operator.equals("$isNumber")) {
+            return evaluate(argument, document, variables) instanceof Number;
+        }
+        if (operator.equals("$abs")) {
+            return Math.abs(((Number) evaluate(argument, document, variables)).doubleValue());
+        }
+
+        List<Object> values = ((List<Object>) argument).stream()
+                .map(value -> evaluate(value, document, variables))
+                .toList();
+        if (operator.equals("$eq")) {
+            Object left = values.get(0);
+            Object right = values.get(1);
+            return left instanceof Number l && right instanceof Number r
+                    ? l.doubleValue() == r.doubleValue()
+                    : left != null && left.equals(right);
+        }
+
+        double[] numbers = values.stream().mapToDouble(value -> ((Number) value).doubleValue()).toArray();
+        return switch (operator) {
+            case "$add" -> java.util.Arrays.stream(numbers).sum();
+            case "$multiply" -> numbers[0] * numbers[1];
+            case "$subtract" -> numbers[0] - numbers[1];
+            case "$divide" -> numbers[0] / numbers[1];
+            case "$max" -> Math.max(numbers[0], numbers[1]);
+            default -> throw new IllegalArgumentException(operator);
+        };
+    }
+}
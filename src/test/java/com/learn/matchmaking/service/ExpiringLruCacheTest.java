@@ -0,0 +1,101 @@
+package com.learn.matchmaking.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringLruCacheTest {
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-11-05T12:00:00Z");
+
+        @Override
+        public ZoneId getZone() {
+
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+
+            return now;
+        }
+    }
+
+    @Test
+    void canEvictLeastRecentlyReadEntryWhenFull() {
+
+        //given
+        MutableClock clock = new MutableClock();
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, clock);
+        long expiresAt = clock.millis() + 1_000;
+        cache.put("a", 1, expiresAt);
+        cache.put("b", 2, expiresAt);
+
+        //when
+        cache.get("a");
+        cache.put("c", 3, expiresAt);
+
+        //then
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.hits()).isEqualTo(3L);
+        assertThat(cache.misses()).isEqualTo(1L);
+        assertThat(cache.evictions()).isEqualTo(1L);
+    }
+
+    @Test
+    void canExpireEntriesAtTheirOwnTime() {
+
+        //given
+        MutableClock clock = new MutableClock();
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, clock);
+        cache.put("short", 1, clock.millis() + 100);
+        cache.put("long", 2, clock.millis() + 1_000);
+        cache.put("expired", 3, clock.millis());
+
+        //when
+        clock.now = clock.now.plusMillis(100);
+
+        //then
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.get("long")).isEqualTo(2);
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void canStayWithinItsSizeUnderConcurrentPuts() {
+
+        //given
+        MutableClock clock = new MutableClock();
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(32, clock);
+        long expiresAt = clock.millis() + 1_000;
+
+        //when
+        IntStream.range(0, 4).parallel().forEach(thread -> {
+            for (int i = 0; i < 1_000; i++) {
+                cache.put(thread + ":" + i, i, expiresAt);
+                cache.get(thread + ":" + (i / 2));
+            }
+        });
+
+        //then
+        assertThat(cache.size()).isLessThanOrEqualTo(32);
+        assertThat(cache.evictions()).isEqualTo(4_000L - cache.size());
+    }
+}
@@ -0,0 +1,87 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.model.MyUserDetails;
+import com.learn.matchmaking.model.Users;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JWTServiceTest {
+
+    private static MyUserDetails user(String username) {
+
+        Users users = new Users();
+        users.setUsername(username);
+        users.setPassword("Testpassword");
+        return new MyUserDetails(users);
+    }
+
+    @Test
+    void canVerifyTokenOnceAndServeItFromCache() {
+
+        //given
+        JWTService jwtService = new JWTService(100);
+        String token = jwtService.generateToken("testAdmin");
+
+        //when
+        Optional<Claims> first = jwtService.verify(token);
+        Optional<Claims> second = jwtService.verify(token);
+
+        //then
+        assertThat(first).isPresent();
+        assertThat(first.get().getSubject()).isEqualTo("testAdmin");
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(jwtService.validateToken(first.get(), user("testAdmin"))).isTrue();
+        assertThat(jwtService.validateToken(first.get(), user("someoneElse"))).isFalse();
+    }
+
+    @Test
+    void canNotVerifyTamperedOrForeignTokens() {
+
+        //given
+        JWTService jwtService = new JWTService(100);
+        String token = jwtService.generateToken("testAdmin");
+        String foreignToken = new JWTService(100).generateToken("testAdmin");
+
+        //when
+        Optional<Claims> tampered = jwtService.verify(token.substring(0, token.length() - 2) + "xx");
+        Optional<Claims> foreign = jwtService.verify(foreignToken);
+        Optional<Claims> garbage = jwtService.verify("not-a-token");
+
+        //then
+        assertThat(tampered).isEmpty();
+        assertThat(foreign).isEmpty();
+        assertThat(garbage).isEmpty();
+    }
+
+    @Test
+    void canCarryAuthoritiesAndUserVersionInToken() {
+
+        //given
+        JWTService jwtService = new JWTService(100);
+        MyUserDetails user = user("gameServer");
+        user.getUser().setRoles(List.of("USER", "SERVER"));
+        user.getUser().setVersion(3);
+        String token = jwtService.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        //when
+        Claims claims = jwtService.verify(token).orElseThrow();
+        UserDetails principal = jwtService.principalFrom(claims).orElseThrow();
+
+        //then
+        assertThat(principal.getUsername()).isEqualTo("gameServer");
+        assertThat(principal.getAuthorities()).extracting(Object::toString).containsExactlyInAnyOrder("USER", "SERVER");
+        assertThat(jwtService.validateToken(claims, user)).isTrue();
+        user.getUser().setVersion(4);
+        assertThat(jwtService.validateToken(claims, user)).isFalse();
+        assertThat(jwtService.principalFrom(jwtService.verify(jwtService.generateToken("gameServer")).orElseThrow()))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,133 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.dto.MatchProfile;
+import com.learn.matchmaking.dto.MatchResponse;
+import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MatchProfileServiceTest {
+
+    @Mock
+    private PlayerRepository playerRepo;
+    private MatchProfileService matchProfileService;
+
+    private Player player1;
+    private Player player2;
+    private Player player3;
+
+    @BeforeEach
+    void setUp() {
+
+        matchProfileService = new MatchProfileService(playerRepo, new PlayerReservations(30_000, Clock.systemUTC()));
+        player1 = new Player("1", "Player1", new HashMap<>(Map.of("strength", 80)), true);
+        player2 = new Player("2", "Player2", new HashMap<>(Map.of("strength", 40)), true);
+        player3 = new Player("3", "Player3", new HashMap<>(Map.of("strength", 60)), true);
+    }
+
+    private MatchProfile createProfile() {
+
+        return new MatchProfile("ranked", new HashMap<>(Map.of("strength", 80)),
+                new HashMap<>(Map.of("strength", 1.0)), 2, false);
+    }
+
+    @Test
+    void canGetGroupsFromRegisteredProfile() {
+
+        //when
+        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(List.of(player1, player2, player3));
+        String message = matchProfileService.registerProfile(createProfile());
+        MatchResponse response = matchProfileService.getGroupsFromProfile("ranked");
+
+        //then
+        assertThat(message).isEqualTo(MatchConstants.PROFILE_REGISTRATION_SUCCESSFUL_MESSAGE);
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        assertThat(response.getGroups()).isEqualTo(List.of(
+                List.of(new PlayerBasicDTO(player1), new PlayerBasicDTO(player3)),
+                List.of(new PlayerBasicDTO(player2))
+        ));
+    }
+
+    @Test
+    void canKeepProfilePoolRankedAsPlayersChange() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(List.of(player1, player2, player3));
+        matchProfileService.registerProfile(createProfile());
+        Player updatedPlayer2 = new Player("2", "Player2", new HashMap<>(Map.of("strength", 79)), true);
+        Player stoppedPlayer3 = new Player("3", "Player3", new HashMap<>(Map.of("strength", 60)), false);
+
+        //when
+        matchProfileService.onPlayersChanged(PlayersChangedEvent.saved(List.of(updatedPlayer2, stoppedPlayer3)));
+        matchProfileService.onPlayersChanged(PlayersChangedEvent.deleted(List.of("1")));
+        matchProfileService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                new Player("4", "Player4", new HashMap<>(Map.of("strength", 90)), true))));
+        MatchResponse response = matchProfileService.getGroupsFromProfile("ranked");
+
+        //then
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).get(0).getName()).isEqualTo("Player2");
+        assertThat(response.getGroups().get(0).get(1).getName()).isEqualTo("Player4");
+    }
+
+    @Test
+    void canKeepPlayersRemovedWhileSeedingOutOfPool() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true)).thenAnswer(invocation -> {
+            matchProfileService.onPlayersChanged(PlayersChangedEvent.deleted(List.of("1")));
+            return List.of(player1, player2, player3);
+        });
+
+        //when
+        matchProfileService.registerProfile(createProfile());
+        MatchResponse response = matchProfileService.getGroupsFromProfile("ranked");
+
+        //then
+        assertThat(response.getGroups()).isEqualTo(List.of(
+                List.of(new PlayerBasicDTO(player3), new PlayerBasicDTO(player2))
+        ));
+    }
+
+    @Test
+    void canNotRegisterInvalidProfile() {
+
+        //given
+        MatchProfile profile = createProfile();
+        profile.setAttributeWeights(new HashMap<>());
+
+        //when
+        String message = matchProfileService.registerProfile(profile);
+
+        //then
+        assertThat(message).isEqualTo(MatchConstants.PROFILE_INVALID_MESSAGE);
+    }
+
+    @Test
+    void canNotGetGroupsFromUnknownProfile() {
+
+        //when
+        MatchResponse response = matchProfileService.getGroupsFromProfile("unknown");
+
+        //then
+        assertThat(response.getGroups().isEmpty()).isTrue();
+        assertThat(response.getMessage()).isEqualTo(String.format(MatchConstants.PROFILE_NOT_FOUND_MESSAGE, "unknown"));
+    }
+}
@@ -0,0 +1,183 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.dto.MatchProfile;
+import com.learn.matchmaking.dto.MatchResponse;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.ScoringEngine;
+import com.learn.matchmaking.matching.ScoringKernels;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchSchedulerServiceTest {
+
+    @Mock private PlayerRepository playerRepo;
+    @Mock private MatchProfileService matchProfileService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    private final PlayerReservations reservations = new PlayerReservations(30_000, Clock.systemUTC());
+    private MatchSchedulerService matchSchedulerService;
+
+    @BeforeEach
+    void setUp() {
+
+        matchSchedulerService = new MatchSchedulerService(playerRepo, matchProfileService,
+                ScoringEngine.sequential(ScoringKernels.scalar()), reservations, eventPublisher, true, 100);
+        when(matchProfileService.getProfiles()).thenReturn(List.of(new MatchProfile("ranked",
+                new HashMap<>(Map.of("strength", 80)), new HashMap<>(Map.of("strength", 1.0)), 2, false)));
+        lenient().when(playerRepo.claimForMatch(any(), anyString()))
+                .thenAnswer(invocation -> new HashSet<>(invocation.<Collection<String>>getArgument(0)));
+    }
+
+    private Player createPlayer(String id, int strength) {
+
+        return new Player(id, "Player" + id, new HashMap<>(Map.of("strength", strength)), true);
+    }
+
+    @Test
+    void canFormCompleteGroupsOnTick() {
+
+        //given
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 20), createPlayer("3", 75))));
+
+        //when
+        matchSchedulerService.tick();
+        MatchResponse response = matchSchedulerService.takeResults("ranked", 10);
+
+        //then
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).get(0).getId()).isEqualTo("1");
+        assertThat(response.getGroups().get(0).get(1).getId()).isEqualTo("3");
+        verify(playerRepo).claimForMatch(eq(Set.of("1", "3")), anyString());
+        verify(eventPublisher).publishEvent(any(PlayersChangedEvent.class));
+        assertThat(matchSchedulerService.takeResults("ranked", 10).getGroups().isEmpty()).isTrue();
+    }
+
+    @Test
+    void canKeepLeftoverPlayersQueuedForTheNextTick() {
+
+        //given
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(createPlayer("1", 80))));
+        matchSchedulerService.tick();
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(createPlayer("2", 60))));
+
+        //when
+        matchSchedulerService.tick();
+        MatchResponse response = matchSchedulerService.takeResults("ranked", 10);
+
+        //then
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        verify(playerRepo, times(1)).claimForMatch(any(), anyString());
+    }
+
+    @Test
+    void canNotMatchPlayersThatStoppedSearching() {
+
+        //given
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 60))));
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.deleted(List.of("2")));
+
+        //when
+        matchSchedulerService.tick();
+
+        //then
+        assertThat(matchSchedulerService.takeResults("ranked", 10).getGroups().isEmpty()).isTrue();
+        verify(playerRepo, never()).claimForMatch(any(), anyString());
+    }
+
+    @Test
+    void canRequeuePlayerThatSearchesAgainAfterStopping() {
+
+        //given
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 60))));
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                new Player("2", "Player2", new HashMap<>(Map.of("strength", 60)), false))));
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(createPlayer("2", 60))));
+
+        //when
+        matchSchedulerService.tick();
+
+        //then
+        assertThat(matchSchedulerService.takeResults("ranked", 10).getGroups().size()).isEqualTo(1);
+    }
+
+    @Test
+    void canSkipPlayersClaimedByAPoolMatch() {
+
+        //given
+        reservations.claim("1", reservations.newEpoch());
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 60), createPlayer("3", 70))));
+
+        //when
+        matchSchedulerService.tick();
+        MatchResponse response = matchSchedulerService.takeResults("ranked", 10);
+
+        //then
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        verify(playerRepo).claimForMatch(eq(Set.of("2", "3")), anyString());
+        assertThat(reservations.isClaimed("2")).isFalse();
+    }
+
+    @Test
+    void canDropGroupsWithPlayersTakenByAnotherInstance() {
+
+        //given
+        when(matchProfileService.getProfiles()).thenReturn(List.of(new MatchProfile("ranked",
+                new HashMap<>(Map.of("strength", 80)), new HashMap<>(Map.of("strength", 1.0)), 2, true)));
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 70), createPlayer("3", 60), createPlayer("4", 50))));
+        doReturn(Set.of("1", "2", "4")).when(playerRepo).claimForMatch(eq(Set.of("1", "2", "3", "4")), anyString());
+
+        //when
+        matchSchedulerService.tick();
+        MatchResponse response = matchSchedulerService.takeResults("ranked", 10);
+
+        //then
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).stream().map(player -> player.getId()).toList())
+                .isEqualTo(List.of("1", "4"));
+        verify(playerRepo).releaseMatchClaim(eq(List.of("2")), anyString());
+    }
+
+    @Test
+    void canReleaseReservationsWhenTakingPlayersFails() {
+
+        //given
+        matchSchedulerService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                createPlayer("1", 80), createPlayer("2", 70))));
+        doThrow(new IllegalStateException("write failed")).when(playerRepo).claimForMatch(any(), anyString());
+
+        //when
+        Throwable thrown = catchThrowable(() -> matchSchedulerService.tick());
+
+        //then
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(reservations.isClaimed("1")).isFalse();
+        assertThat(reservations.isClaimed("2")).isFalse();
+    }
+}
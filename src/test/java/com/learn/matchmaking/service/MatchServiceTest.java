@@ -1,9 +1,19 @@
 package com.learn.matchmaking.service;
 
 import com.learn.matchmaking.constant.MatchConstants;
+import com.learn.matchmaking.constant.MetricConstants;
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.dto.MatchEngine;
 import com.learn.matchmaking.dto.MatchRequest;
 import com.learn.matchmaking.dto.MatchResponse;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.matching.AggregationGroupingEngine;
+import com.learn.matchmaking.matching.PlayerReservations;
+import com.learn.matchmaking.matching.ScoringEngine;
+import com.learn.matchmaking.matching.ScoringKernels;
+import com.learn.matchmaking.matching.ScoringPlan;
+import com.learn.matchmaking.matching.SortedGroupingEngine;
 import com.learn.matchmaking.model.Player;
 import com.learn.matchmaking.repo.PlayerRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,10 +21,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Clock;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,12 +45,33 @@ class MatchServiceTest {
 
     @Mock
     private PlayerRepository playerRepo;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private final MetricsService metricsService = new MetricsService();
     private MatchService matchService;
+    private PlayerService playerService;
+    private PlayerFilterIndexService filterIndex;
+
+    private MatchService createMatchService() {
+
+        return createMatchService(new PlayerUpdateBuffer(false, 0, 1, Clock.systemUTC()));
+    }
+
+    private MatchService createMatchService(PlayerUpdateBuffer updateBuffer) {
+
+        filterIndex = new PlayerFilterIndexService(playerRepo, metricsService, true);
+        playerService = new PlayerService(playerRepo, new PlayerResolver(playerRepo, Runnable::run, 1000), eventPublisher,
+                updateBuffer, metricsService, 1000);
+        return new MatchService(playerRepo, new PlayerResolver(playerRepo, Runnable::run, 1000), filterIndex, playerService,
+                List.of(new SortedGroupingEngine(ScoringEngine.sequential(ScoringKernels.scalar())),
+                        new AggregationGroupingEngine(3)),
+                new PlayerReservations(30_000, Clock.systemUTC()), metricsService, true);
+    }
 
     @BeforeEach
     void setUp() {
 
-        matchService = new MatchService(playerRepo);
+        matchService = createMatchService();
     }
 
     @Test
@@ -120,7 +164,7 @@ class MatchServiceTest {
                 List.of(playerBasicDTO3, playerBasicDTO2)
         );
         //when
-        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(players);
+        when(playerRepo.findSearchingPlayers(anyCollection())).thenReturn(players);
         MatchResponse response = matchService.getGroupsFromPool(request);
 
         //then
@@ -221,7 +265,7 @@ class MatchServiceTest {
                 List.of(playerBasicDTO2, playerBasicDTO4)
         );
         //when
-        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(players);
+        when(playerRepo.findSearchingPlayers(anyCollection())).thenReturn(players);
         MatchResponse response = matchService.getGroupsFromPool(request);
 
         //then
@@ -261,7 +305,7 @@ class MatchServiceTest {
         List<Player> players = new ArrayList<>();
 
         //when
-        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(players);
+        when(playerRepo.findSearchingPlayers(anyCollection())).thenReturn(players);
         MatchResponse response = matchService.getGroupsFromPool(request);
 
         //then
@@ -365,10 +409,7 @@ class MatchServiceTest {
         );
 
         //when
-        for (Player player : players) {
-
-            when(playerRepo.findById(player.getId())).thenReturn(Optional.of(player));
-        }
+        when(playerRepo.findAllById(players.stream().map(Player::getId).toList())).thenReturn(players);
         MatchResponse response = matchService.getGroupsFromCustomIds(request);
 
         //then
@@ -473,10 +514,7 @@ class MatchServiceTest {
         );
 
         //when
-        for (Player player : players) {
-
-            when(playerRepo.findById(player.getId())).thenReturn(Optional.of(player));
-        }
+        when(playerRepo.findAllById(players.stream().map(Player::getId).toList())).thenReturn(players);
         MatchResponse response = matchService.getGroupsFromCustomIds(request);
 
         //then
@@ -522,6 +560,27 @@ class MatchServiceTest {
         assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_PLAYER_IDS_MANDATORY_MESSAGE);
     }
 
+    @Test
+    void canGetGroupsFromCustomIdsWhenNoPlayerPassesRequiredAttributes() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        request.setRequiredAttributes(List.of(new AttributeFilter("region", List.of("EU"), null, null)));
+        request.setPlayerIds(List.of("1"));
+        when(playerRepo.findAllById(List.of("1"))).thenReturn(List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 80, "region", "NA")), true)));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromCustomIds(request);
+
+        //then
+        assertThat(response.getGroups().isEmpty()).isTrue();
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+    }
+
     @Test
     void canGetGroupsFromCustomIdsPlayerNotFound() {
 
@@ -608,7 +667,7 @@ class MatchServiceTest {
         );
 
         //when
-        when(playerRepo.findById(playerBasicDTO1.getId())).thenReturn(Optional.empty());
+        when(playerRepo.findAllById(anyIterable())).thenReturn(List.of());
         MatchResponse response = matchService.getGroupsFromCustomIds(request);
 
         //then
@@ -617,4 +676,252 @@ class MatchServiceTest {
         assertThat(response.getMessage().isEmpty()).isFalse();
         assertThat(response.getMessage()).isEqualTo("Player with ID " + playerBasicDTO1.getId() + " not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    void canNotHandOutTheSamePlayersToTwoPoolMatches() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        List<Player> players = List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 80)), true),
+                new Player("2", "Player2", new HashMap<>(Map.of("strength", 70)), true)
+        );
+        when(playerRepo.findSearchingPlayers(anyCollection())).thenReturn(players);
+
+        //when
+        MatchResponse first = matchService.getGroupsFromPool(request);
+        MatchResponse second = matchService.getGroupsFromPool(request);
+
+        //then
+        assertThat(first.getGroups().size()).isEqualTo(1);
+        assertThat(second.getGroups().isEmpty()).isTrue();
+        assertThat(second.getMessage()).isEqualTo(MatchConstants.MATCH_MAKING_CRITERIA_MESSAGE);
+    }
+
+    @Test
+    void canCoalesceIdenticalConcurrentPoolRequests() throws Exception {
+
+        //given
+        MatchService coalescingMatchService = createMatchService();
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        MatchRequest sameRequest = new MatchRequest();
+        sameRequest.setGroupSize(2);
+        sameRequest.setTargetAttributes(new HashMap<>(Map.of("strength", 80.0)));
+        sameRequest.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        List<Player> players = List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 80)), true),
+                new Player("2", "Player2", new HashMap<>(Map.of("strength", 70)), true),
+                new Player("3", "Player3", new HashMap<>(Map.of("strength", 60)), true),
+                new Player("4", "Player4", new HashMap<>(Map.of("strength", 50)), true)
+        );
+        when(playerRepo.findSearchingPlayers(anyCollection())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return players;
+        });
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MatchResponse> first = executor.submit(() -> coalescingMatchService.getGroupsFromPool(request));
+            Thread.sleep(50);
+            Future<MatchResponse> second = executor.submit(() -> coalescingMatchService.getGroupsFromPool(sameRequest));
+
+            //then
+            assertThat(first.get().getGroups().size()).isEqualTo(1);
+            assertThat(second.get().getGroups().size()).isEqualTo(1);
+            assertThat(first.get().getGroups().get(0)).isNotEqualTo(second.get().getGroups().get(0));
+        } finally {
+            executor.shutdown();
+        }
+        verify(playerRepo, times(1)).findSearchingPlayers(anyCollection());
+        assertThat(metricsService.count(MetricConstants.POOL_COALESCED)).isEqualTo(1L);
+        assertThat(metricsService.count(MetricConstants.POOL_COMPUTATIONS)).isEqualTo(1L);
+    }
+
+    @Test
+    void canGetGroupsFromPoolLoadingOnlyScoredAttributes() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setBucketAttribute("level");
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80, "isVIP", true)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 0.5, "isVIP", 0.5)));
+        List<Player> players = List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 80)), null),
+                new Player("2", "Player2", null, null)
+        );
+        when(playerRepo.findSearchingPlayers(Set.of("strength", "isVIP", "level"))).thenReturn(players);
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(request);
+
+        //then
+        verify(playerRepo, times(1)).findSearchingPlayers(Set.of("strength", "isVIP", "level"));
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).get(0).getId()).isEqualTo("1");
+        assertThat(response.getGroups().get(0).get(1).getAttributes()).isNull();
+    }
+
+    @Test
+    void canGetGroupsFromPoolWithBufferedUpdatesWithoutFlushing() {
+
+        //given
+        matchService = createMatchService(new PlayerUpdateBuffer(true, 60_000, 100, Clock.systemUTC()));
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        when(playerRepo.findIdsByIdIn(anyCollection())).thenAnswer(invocation -> ((Collection<String>) invocation.getArgument(0))
+                .stream().map(id -> new Player(id, null, null, null)).toList());
+        playerService.updatePlayers(List.of(new PlayerDTO("1", null, new HashMap<>(Map.of("strength", 80)), null),
+                new PlayerDTO("2", null, null, false), new PlayerDTO("3", null, null, true)));
+        when(playerRepo.findSearchingPlayers(Set.of("strength"))).thenReturn(List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 10)), null),
+                new Player("2", "Player2", new HashMap<>(Map.of("strength", 80)), null),
+                new Player("4", "Player4", new HashMap<>(Map.of("strength", 80)), null),
+                new Player("5", "Player5", new HashMap<>(Map.of("strength", 80)), null)));
+        when(playerRepo.findAllById(List.of("3")))
+                .thenReturn(List.of(new Player("3", "Player3", new HashMap<>(Map.of("strength", 80)), false)));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(request);
+
+        //then
+        Set<String> groupedIds = new HashSet<>();
+        response.getGroups().forEach(group -> group.forEach(player -> groupedIds.add(player.getId())));
+        assertThat(groupedIds).isEqualTo(Set.of("1", "3", "4", "5"));
+        verify(playerRepo, never()).updateEach(anyList());
+    }
+
+    @Test
+    void canGetGroupsFromPoolRankedByAggregation() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setMatchTypeFair(true);
+        request.setEngine(MatchEngine.AGGREGATION);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        List<Player> rankedPlayers = List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("strength", 80)), null),
+                new Player("2", "Player2", new HashMap<>(Map.of("strength", 70)), null),
+                new Player("3", "Player3", new HashMap<>(Map.of("strength", 60)), null)
+        );
+        when(playerRepo.findRankedSearchingPlayers(any(ScoringPlan.class), eq(List.of()), eq(3))).thenReturn(rankedPlayers);
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(request);
+
+        //then
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        assertThat(response.getGroups().size()).isEqualTo(2);
+        assertThat(response.getGroups().get(0).stream().map(PlayerBasicDTO::getId).toList()).isEqualTo(List.of("1", "3"));
+        assertThat(response.getGroups().get(1).get(0).getId()).isEqualTo("2");
+        verify(playerRepo, times(0)).findSearchingPlayers(anyCollection());
+    }
+
+    @Test
+    void canNotGetGroupsFromCustomIdsWithAggregationEngine() {
+
+        //given
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setEngine(MatchEngine.AGGREGATION);
+        request.setPlayerIds(List.of("1", "2"));
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromCustomIds(request);
+
+        //then
+        assertThat(response.getGroups().isEmpty()).isTrue();
+        assertThat(response.getMessage())
+                .isEqualTo(String.format(MatchConstants.MATCH_ENGINE_POOL_ONLY_MESSAGE, MatchEngine.AGGREGATION));
+    }
+
+    private static MatchRequest filteredRequest() {
+
+        MatchRequest request = new MatchRequest();
+        request.setGroupSize(2);
+        request.setTargetAttributes(new HashMap<>(Map.of("strength", 80)));
+        request.setAttributeWeights(new HashMap<>(Map.of("strength", 1.0)));
+        request.setRequiredAttributes(List.of(
+                new AttributeFilter("region", List.of("EU", "SA"), null, null),
+                new AttributeFilter("level", null, 10.0, null)));
+        return request;
+    }
+
+    @Test
+    void canGetGroupsFromPoolLoadingOnlyFilterIndexCandidates() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("region", "EU", "level", 12, "strength", 80)), true),
+                new Player("2", "Player2", new HashMap<>(Map.of("region", "NA", "level", 30, "strength", 80)), true),
+                new Player("3", "Player3", new HashMap<>(Map.of("region", "SA", "level", 10, "strength", 70)), true),
+                new Player("4", "Player4", new HashMap<>(Map.of("region", "EU", "level", 3, "strength", 80)), true),
+                new Player("5", "Player5", new HashMap<>(Map.of("region", "EU", "level", 40, "strength", 60)), true)
+        ));
+        filterIndex.seedIndex();
+        // player 5 left the region after the index saw it, the loaded document wins
+        when(playerRepo.findSearchingPlayers(Set.of("strength", "region", "level"), List.of("1", "3", "5"))).thenReturn(List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("region", "EU", "level", 12, "strength", 80)), true),
+                new Player("3", "Player3", new HashMap<>(Map.of("region", "SA", "level", 10, "strength", 70)), true),
+                new Player("5", "Player5", new HashMap<>(Map.of("region", "NA", "level", 40, "strength", 60)), true)
+        ));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(filteredRequest());
+
+        //then
+        verify(playerRepo, times(0)).findSearchingPlayers(anyCollection());
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).stream().map(PlayerBasicDTO::getId).toList()).isEqualTo(List.of("1", "3"));
+    }
+
+    @Test
+    void canGetGroupsFromPoolFilteringLoadedPlayersBeforeIndexIsReady() {
+
+        //given
+        when(playerRepo.findSearchingPlayers(Set.of("strength", "region", "level"))).thenReturn(List.of(
+                new Player("1", "Player1", new HashMap<>(Map.of("region", "EU", "level", 12, "strength", 80)), true),
+                new Player("2", "Player2", new HashMap<>(Map.of("region", "NA", "level", 30, "strength", 80)), true),
+                new Player("3", "Player3", new HashMap<>(Map.of("region", "SA", "level", 10.0, "strength", 70)), true),
+                new Player("4", "Player4", new HashMap<>(Map.of("region", "EU", "level", 3, "strength", 80)), true)
+        ));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(filteredRequest());
+
+        //then
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_SUCCESSFUL_MESSAGE);
+        assertThat(response.getGroups().size()).isEqualTo(1);
+        assertThat(response.getGroups().get(0).stream().map(PlayerBasicDTO::getId).toList()).isEqualTo(List.of("1", "3"));
+    }
+
+    @Test
+    void canNotGetGroupsFromPoolWithIncompleteRequiredAttribute() {
+
+        //given
+        MatchRequest request = filteredRequest();
+        request.setRequiredAttributes(List.of(new AttributeFilter("region", List.of(), null, null)));
+
+        //when
+        MatchResponse response = matchService.getGroupsFromPool(request);
+
+        //then
+        assertThat(response.getGroups().isEmpty()).isTrue();
+        assertThat(response.getMessage()).isEqualTo(MatchConstants.MATCH_REQUIRED_ATTRIBUTES_MESSAGE);
+    }
+}
@@ -1,11 +1,11 @@
 package com.learn.matchmaking.service;
 
+import com.learn.matchmaking.model.MyUserDetails;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.repo.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,13 +15,22 @@ import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class MyUserDetailsServiceTest {
 
     @Mock private UserRepository userRepository;
-    @InjectMocks private MyUserDetailsService myUserDetailsService;
+    private final MetricsService metricsService = new MetricsService();
+    private MyUserDetailsService myUserDetailsService;
+
+    @BeforeEach
+    void setUp() {
+
+        myUserDetailsService = new MyUserDetailsService(userRepository, metricsService, 100, 60_000);
+    }
 
     @Test
     void canLoadUserByUsername() {
@@ -44,4 +53,64 @@ class MyUserDetailsServiceTest {
 
         assertThrows(UsernameNotFoundException.class, () -> myUserDetailsService.loadUserByUsername("testAdmin"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void canServeRepeatedLookupsFromCacheUntilEvicted() {
+
+        Users user = new Users();
+        user.setUsername("testAdmin");
+        user.setPassword("Admin@000");
+
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Optional.of(user));
+
+        myUserDetailsService.loadUserByUsername(user.getUsername());
+        myUserDetailsService.loadUserByUsername(user.getUsername());
+        myUserDetailsService.evict(user.getUsername());
+        myUserDetailsService.loadUserByUsername(user.getUsername());
+
+        verify(userRepository, times(2)).findByUsername(user.getUsername());
+        assertThat(metricsService.snapshot().get("auth.user-cache.hits")).isEqualTo(1L);
+        assertThat(metricsService.snapshot().get("auth.user-cache.misses")).isEqualTo(2L);
+    }
+
+    @Test
+    void canLoadUserPastTheCacheAndRefreshIt() {
+
+        Users user = new Users();
+        user.setUsername("testAdmin");
+        user.setPassword("Admin@000");
+        Users changed = new Users();
+        changed.setUsername("testAdmin");
+        changed.setPassword("Admin@001");
+
+        when(userRepository.findByUsername(user.getUsername()))
+                .thenReturn(Optional.of(user))
+                .thenReturn(Optional.of(changed));
+
+        myUserDetailsService.loadUserByUsername(user.getUsername());
+        UserDetails uncached = myUserDetailsService.loadUserByUsernameUncached(user.getUsername());
+        UserDetails cached = myUserDetailsService.loadUserByUsername(user.getUsername());
+
+        verify(userRepository, times(2)).findByUsername(user.getUsername());
+        assertThat(uncached.getPassword()).isEqualTo("Admin@001");
+        assertThat(cached.getPassword()).isEqualTo("Admin@001");
+    }
+
+    @Test
+    void canStoreRehashedPasswordWithoutBumpingVersion() {
+
+        Users stored = new Users("1", "testAdmin", "$2a$10$oldhash", null, 3);
+        Users rehashed = new Users("1", "testAdmin", "$2a$12$newhash", null, 3);
+
+        when(userRepository.findByUsername("testAdmin")).thenReturn(Optional.of(stored), Optional.of(rehashed));
+        when(userRepository.updatePassword("testAdmin", "$2a$10$oldhash", "$2a$12$newhash")).thenReturn(1L);
+
+        UserDetails loaded = myUserDetailsService.loadUserByUsername("testAdmin");
+        UserDetails response = myUserDetailsService.updatePassword(loaded, "$2a$12$newhash");
+
+        assertThat(response.getPassword()).isEqualTo("$2a$12$newhash");
+        assertThat(((MyUserDetails) response).getVersion()).isEqualTo(3L);
+        assertThat(myUserDetailsService.loadUserByUsername("testAdmin").getPassword()).isEqualTo("$2a$12$newhash");
+        assertThat(metricsService.count("auth.password-rehashes")).isEqualTo(1L);
+    }
+}
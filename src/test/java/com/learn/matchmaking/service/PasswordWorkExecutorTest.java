@@ -0,0 +1,85 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.exception.PasswordWorkRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordWorkExecutorTest {
+
+    private final MetricsService metricsService = new MetricsService();
+    private final PasswordWorkExecutor passwordWorkExecutor = new PasswordWorkExecutor(metricsService, 1, 1, 3);
+
+    @AfterEach
+    void tearDown() {
+
+        passwordWorkExecutor.shutdown();
+    }
+
+    @Test
+    void runsWorkOnPasswordThreadAndCountsIt() {
+
+        //when
+        String threadName = passwordWorkExecutor.call(() -> Thread.currentThread().getName());
+
+        //then
+        assertThat(threadName).startsWith("password-work-");
+        assertThat(metricsService.count("auth.password-work.tasks")).isEqualTo(1L);
+        assertThat(metricsService.snapshot()).containsKeys("auth.password-work.wait-ms",
+                "auth.password-work.queue-depth", "auth.password-work.max-wait-ms");
+    }
+
+    @Test
+    void rethrowsExceptionsOfTheWork() {
+
+        //when //then
+        assertThatThrownBy(() -> passwordWorkExecutor.call(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        })).isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void rejectsWorkAtOnceWhenQueueIsFull() throws Exception {
+
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> passwordWorkExecutor.call(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordWorkExecutor.call(() -> "queued"));
+        while (metricsService.snapshot().get("auth.password-work.queue-depth").intValue() < 1) {
+            Thread.onSpinWait();
+        }
+
+        //when //then
+        assertThatThrownBy(() -> passwordWorkExecutor.call(() -> "rejected"))
+                .isInstanceOf(PasswordWorkRejectedException.class)
+                .extracting(e -> ((PasswordWorkRejectedException) e).getRetryAfterSeconds())
+                .isEqualTo(3L);
+        assertThat(metricsService.count("auth.password-work.rejected")).isEqualTo(1L);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+
+    private static void await(CountDownLatch latch) {
+
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.dto.AttributeFilter;
+import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerFilterIndexServiceTest {
+
+    private static final List<AttributeFilter> EU = List.of(new AttributeFilter("region", List.of("EU"), null, null));
+
+    @Mock
+    private PlayerRepository playerRepo;
+    private PlayerFilterIndexService playerFilterIndexService;
+
+    private Player player1;
+    private Player player2;
+
+    @BeforeEach
+    void setUp() {
+
+        playerFilterIndexService = new PlayerFilterIndexService(playerRepo, new MetricsService(), true);
+        player1 = new Player("1", "Player1", new HashMap<>(Map.of("region", "EU")), true);
+        player2 = new Player("2", "Player2", new HashMap<>(Map.of("region", "EU")), true);
+    }
+
+    @Test
+    void keepsChangesReceivedWhileSeeding() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true)).thenAnswer(invocation -> {
+            playerFilterIndexService.onPlayersChanged(PlayersChangedEvent.deleted(List.of("1")));
+            playerFilterIndexService.onPlayersChanged(PlayersChangedEvent.saved(List.of(
+                    new Player("2", "Player2", new HashMap<>(Map.of("region", "NA")), true))));
+            return List.of(player1, player2);
+        });
+
+        //when
+        playerFilterIndexService.seedIndex();
+
+        //then
+        assertThat(playerFilterIndexService.candidates(EU)).contains(List.of());
+    }
+
+    @Test
+    void reconcilesWithPlayersWrittenElsewhere() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true))
+                .thenReturn(List.of(player1))
+                .thenReturn(List.of(player2));
+        playerFilterIndexService.seedIndex();
+
+        //when
+        playerFilterIndexService.reconcileIndex();
+
+        //then
+        assertThat(playerFilterIndexService.candidates(EU)).contains(List.of("2"));
+    }
+
+    @Test
+    void appliesAttributeUpdatesWithoutLoadingPlayers() {
+
+        //given
+        when(playerRepo.findByIsSearchingForMatch(true)).thenReturn(List.of(player1, player2));
+        playerFilterIndexService.seedIndex();
+        PlayersUpdatedEvent event = new PlayersUpdatedEvent(List.of(
+                new PlayerDTO("1", null, new HashMap<>(Map.of("region", "NA")), null),
+                new PlayerDTO("2", null, null, false)), () -> {
+            throw new AssertionError("players must not be loaded");
+        });
+
+        //when
+        playerFilterIndexService.onPlayersUpdated(event);
+
+        //then
+        assertThat(playerFilterIndexService.candidates(EU)).contains(List.of());
+        assertThat(playerFilterIndexService.candidates(
+                List.of(new AttributeFilter("region", List.of("NA"), null, null)))).contains(List.of("1"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.model.Player;
+import com.learn.matchmaking.repo.PlayerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerResolverTest {
+
+    @Mock private PlayerRepository playerRepo;
+
+    private static Player player(String id) {
+
+        return new Player(id, "Player" + id, Map.of("strength", 50), false);
+    }
+
+    @Test
+    void resolvesPlayersAndMissingIdsInRequestOrder() {
+
+        //given
+        PlayerResolver resolver = new PlayerResolver(playerRepo, Runnable::run, 1000);
+        Player player1 = player("1");
+        Player player3 = player("3");
+        when(playerRepo.findAllById(List.of("3", "2", "1"))).thenReturn(List.of(player1, player3));
+
+        //when
+        PlayerResolver.Resolution resolution = resolver.resolve(List.of("3", "2", "1"));
+
+        //then
+        assertThat(resolution.players()).containsExactly(player3, player1);
+        assertThat(resolution.missingIds()).containsExactly("2");
+        assertThat(resolution.playersById()).containsOnlyKeys("1", "3");
+    }
+
+    @Test
+    void queriesRepeatedIdsOnce() {
+
+        //given
+        PlayerResolver resolver = new PlayerResolver(playerRepo, Runnable::run, 1000);
+        Player player1 = player("1");
+        when(playerRepo.findAllById(List.of("1"))).thenReturn(List.of(player1));
+
+        //when
+        PlayerResolver.Resolution resolution = resolver.resolve(List.of("1", "1"));
+
+        //then
+        verify(playerRepo, times(1)).findAllById(List.of("1"));
+        assertThat(resolution.players()).containsExactly(player1, player1);
+        assertThat(resolution.missingIds()).isEmpty();
+    }
+
+    @Test
+    void splitsLargeRequestsIntoConcurrentChunks() {
+
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        PlayerResolver resolver = new PlayerResolver(playerRepo, executor, 2);
+        when(playerRepo.findAllById(List.of("1", "2"))).thenReturn(List.of(player("1"), player("2")));
+        when(playerRepo.findAllById(List.of("3", "4"))).thenReturn(List.of(player("4")));
+        when(playerRepo.findAllById(List.of("5"))).thenReturn(List.of(player("5")));
+
+        //when
+        PlayerResolver.Resolution resolution = resolver.resolve(List.of("1", "2", "3", "4", "5"));
+        executor.shutdown();
+
+        //then
+        assertThat(resolution.players()).extracting(Player::getId).containsExactly("1", "2", "4", "5");
+        assertThat(resolution.missingIds()).containsExactly("3");
+    }
+
+    @Test
+    void findsExistingIdsWithIdOnlyQueries() {
+
+        //given
+        PlayerResolver resolver = new PlayerResolver(playerRepo, Runnable::run, 2);
+        when(playerRepo.findIdsByIdIn(List.of("1", "2"))).thenReturn(List.of(player("2")));
+        when(playerRepo.findIdsByIdIn(List.of("3"))).thenReturn(List.of(player("3")));
+
+        //when
+        Set<String> existingIds = resolver.existingIds(List.of("1", "2", "3", "2"));
+
+        //then
+        assertThat(existingIds).containsExactly("2", "3");
+    }
+}
@@ -3,17 +3,31 @@ package com.learn.matchmaking.service;
 import com.learn.matchmaking.constant.PlayerConstants;
 import com.learn.matchmaking.dto.PlayerBasicDTO;
 import com.learn.matchmaking.dto.PlayerDTO;
+import com.learn.matchmaking.dto.PlayerPage;
+import com.learn.matchmaking.event.PlayersChangedEvent;
+import com.learn.matchmaking.event.PlayersUpdatedEvent;
 import com.learn.matchmaking.exception.PlayerNotFoundException;
 import com.learn.matchmaking.model.Player;
 import com.learn.matchmaking.repo.PlayerRepository;
+import com.learn.matchmaking.repo.PlayerRepositoryCustom;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+
+import java.time.Clock;
 import java.util.*;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -24,7 +38,16 @@ import static org.mockito.Mockito.*;
 class PlayerServiceTest {
 
     @Mock private PlayerRepository playerRepo;
-    @InjectMocks private PlayerService playerService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Captor private ArgumentCaptor<List<Pair<Query, UpdateDefinition>>> updatesCaptor;
+    private PlayerService playerService;
+
+    @BeforeEach
+    void setUp() {
+
+        playerService = new PlayerService(playerRepo, new PlayerResolver(playerRepo, Runnable::run, 1000), eventPublisher,
+                new PlayerUpdateBuffer(false, 0, 1, Clock.systemUTC()), new MetricsService(), 1000);
+    }
 
     @Test
     void canGetPlayers() {
@@ -72,6 +95,51 @@ class PlayerServiceTest {
         assertThrows(PlayerNotFoundException.class, () -> playerService.getPlayer(name));
     }
 
+    @Test
+    void canGetPlayerPage() {
+
+        //given
+        String after = "672a1754b2eeb2739fa1bb03";
+        Player player1 = new Player("672a1754b2eeb2739fa1bb04", "Player1", null, false);
+        Player player2 = new Player("672a1754b2eeb2739fa1bb05", "Player2", null, false);
+
+        //when
+        when(playerRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(2))).thenReturn(List.of(player1, player2));
+        PlayerPage page = playerService.getPlayers(after, 2);
+
+        //then
+        assertThat(page.getPlayers().size()).isEqualTo(2);
+        assertThat(page.getNextCursor()).isEqualTo(player2.getId());
+        assertThat(page.getMessage()).isNull();
+    }
+
+    @Test
+    void canCapPlayerPageSize() {
+
+        //given
+        Player player1 = new Player("672a1754b2eeb2739fa1bb04", "Player1", null, false);
+
+        //when
+        when(playerRepo.findAllByOrderByIdAsc(Limit.of(PlayerConstants.MAX_PAGE_SIZE))).thenReturn(List.of(player1));
+        PlayerPage page = playerService.getPlayers(null, Integer.MAX_VALUE);
+
+        //then
+        assertThat(page.getPlayers().size()).isEqualTo(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void canNotGetPlayerPageWithInvalidCursor() {
+
+        //when
+        PlayerPage page = playerService.getPlayers("not-an-id", 10);
+
+        //then
+        assertThat(page.getPlayers().isEmpty()).isTrue();
+        assertThat(page.getMessage()).isEqualTo(PlayerConstants.INVALID_CURSOR_MESSAGE + "not-an-id");
+        verifyNoInteractions(playerRepo);
+    }
+
     @Test
     void canRegisterPlayers() {
 
@@ -102,13 +170,13 @@ class PlayerServiceTest {
         playersDTO.add(new PlayerDTO(player2));
 
         //when
-        when(playerRepo.findByName(player1.getName())).thenReturn(Optional.empty());
-        when(playerRepo.findByName(player2.getName())).thenReturn(Optional.empty());
+        when(playerRepo.insertUnordered(anyList()))
+                .thenAnswer(invocation -> new PlayerRepositoryCustom.InsertResult(invocation.getArgument(0), List.of()));
         String actual = playerService.registerPlayers(playersDTO);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.SAVE_SUCCESS_MESSAGE);
-        verify(playerRepo, times(1)).saveAll(anyList());
+        verify(playerRepo, times(1)).insertUnordered(anyList());
     }
 
     @Test
@@ -138,13 +206,63 @@ class PlayerServiceTest {
         playersDTO.add(new PlayerDTO(player2));
 
         //when
-        when(playerRepo.findByName(player1.getName())).thenReturn(Optional.of(player1));
+        when(playerRepo.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Player> players = invocation.getArgument(0);
+            return new PlayerRepositoryCustom.InsertResult(players.subList(1, 2), List.of(players.get(0).getName()));
+        });
         String actual = playerService.registerPlayers(playersDTO);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.SAVE_FAILURE_MESSAGE + "[" + player1.getName() + "]"
                 + " as players with the same name already exists");
-        verify(playerRepo, times(1)).saveAll(anyList());
+        verify(playerRepo, times(1)).insertUnordered(List.of(new Player(playersDTO.get(0)), new Player(playersDTO.get(1))));
+    }
+
+    @Test
+    void canNotRegisterPlayersRejectedByUniqueNameIndex() {
+
+        //given
+        PlayerService batchingPlayerService = new PlayerService(playerRepo,
+                new PlayerResolver(playerRepo, Runnable::run, 1000), eventPublisher,
+                new PlayerUpdateBuffer(false, 0, 1, Clock.systemUTC()), new MetricsService(), 1);
+        PlayerDTO player1 = new PlayerDTO();
+        player1.setName("Player1");
+        PlayerDTO player2 = new PlayerDTO();
+        player2.setName("Player2");
+
+        //when
+        when(playerRepo.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Player> players = invocation.getArgument(0);
+            return players.get(0).getName().equals("Player2")
+                    ? new PlayerRepositoryCustom.InsertResult(List.of(), List.of("Player2"))
+                    : new PlayerRepositoryCustom.InsertResult(players, List.of());
+        });
+        String actual = batchingPlayerService.registerPlayers(List.of(player1, player2));
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.SAVE_FAILURE_MESSAGE + "[Player2]"
+                + " as players with the same name already exists");
+        verify(playerRepo, times(2)).insertUnordered(anyList());
+    }
+
+    @Test
+    void canPublishPlayersWrittenBeforeAFailedInsert() {
+
+        //given
+        PlayerDTO player1 = new PlayerDTO();
+        player1.setName("Player1");
+        PlayerDTO player2 = new PlayerDTO();
+        player2.setName("Player2");
+        IllegalStateException failure = new IllegalStateException("write failed");
+        when(playerRepo.insertUnordered(anyList())).thenAnswer(invocation -> {
+            List<Player> players = invocation.getArgument(0);
+            return new PlayerRepositoryCustom.InsertResult(players.subList(0, 1), List.of(), failure);
+        });
+
+        //when //then
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> playerService.registerPlayers(List.of(player1, player2))));
+        verify(eventPublisher).publishEvent(PlayersChangedEvent.saved(List.of(new Player(player1))));
     }
 
     @Test
@@ -185,13 +303,86 @@ class PlayerServiceTest {
         playersDTO.add(playersDTO2);
 
         //when
-        when(playerRepo.findById(player1.getId())).thenReturn(Optional.of(player1));
-        when(playerRepo.findById(player2.getId())).thenReturn(Optional.of(player2));
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(2));
         String actual = playerService.updatePlayers(playersDTO);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
-        verify(playerRepo, times(1)).saveAll(anyList());
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        verify(playerRepo, never()).saveAll(anyList());
+        verify(playerRepo, never()).findIdsByIdIn(anyCollection());
+        verify(playerRepo, never()).findAllById(anyIterable());
+        List<Pair<Query, UpdateDefinition>> updates = updatesCaptor.getValue();
+        assertThat(updates.size()).isEqualTo(2);
+        assertThat(updates.get(0).getSecond().getUpdateObject().get("$set", Document.class))
+                .isEqualTo(new Document(Map.of("attributes.strength", 96, "attributes.speed", 78)));
+        assertThat(updates.get(1).getSecond().getUpdateObject().get("$set", Document.class))
+                .isEqualTo(new Document("name", "Player2updated"));
+    }
+
+    @Test
+    void canStampSearchingSinceOnlyWhenPlayerStartsSearching() {
+
+        //given
+        PlayerDTO playerDTO = new PlayerDTO();
+        playerDTO.setId("kjdshfGIkhvfytvf");
+        playerDTO.setIsSearchingForMatch(true);
+
+        //when
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+        String actual = playerService.updatePlayers(List.of(playerDTO));
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        List<Pair<Query, UpdateDefinition>> updates = updatesCaptor.getValue();
+        assertThat(updates.size()).isEqualTo(1);
+        assertThat(updates.get(0).getFirst().getQueryObject().containsKey("isSearchingForMatch")).isFalse();
+        Document set = pipelineSet(updates.get(0).getSecond());
+        assertThat(set.get("isSearchingForMatch")).isEqualTo(new Document("$literal", true));
+        Document stamp = set.get("searchingSince", Document.class);
+        assertThat(stamp.getList("$cond", Object.class).get(0))
+                .isEqualTo(new Document("$eq", List.of("$isSearchingForMatch", true)));
+        assertThat(stamp.getList("$cond", Object.class).get(1)).isEqualTo("$searchingSince");
+        assertThat(set.get(PlayerRepositoryCustom.MATCH_CLAIM)).isEqualTo("$$REMOVE");
+    }
+
+    @Test
+    void canLoadUpdatedPlayersOnlyWhenAListenerAsks() {
+
+        //given
+        Player player = new Player("kjdshfGIkhvfytvf", "Player1", Map.of("strength", 96), true);
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+        playerService.updatePlayers(List.of(attributeUpdate(player.getId(), "strength", 96)));
+        ArgumentCaptor<PlayersUpdatedEvent> eventCaptor = ArgumentCaptor.forClass(PlayersUpdatedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        verify(playerRepo, never()).findAllById(anyIterable());
+        when(playerRepo.findAllById(List.of(player.getId()))).thenReturn(List.of(player));
+
+        //when
+        List<Player> first = eventCaptor.getValue().savedPlayers();
+        List<Player> second = eventCaptor.getValue().savedPlayers();
+
+        //then
+        assertThat(first).isEqualTo(List.of(player));
+        assertThat(second).isSameAs(first);
+        verify(playerRepo, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void canNotUpdatePlayersWithInvalidAttributeNames() {
+
+        //given
+        List<PlayerDTO> playersDTO = List.of(attributeUpdate("kjdshfGIkhvfytvf", "strength", 96),
+                attributeUpdate("auebvgavbiu", "stats.speed", 78),
+                attributeUpdate("auebvgavbiu", "$inc", 1));
+
+        //when
+        String actual = playerService.updatePlayers(playersDTO);
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.INVALID_ATTRIBUTE_KEYS_MESSAGE + "stats.speed, $inc");
+        verify(playerRepo, never()).updateEach(anyList());
     }
 
     @Test
@@ -230,13 +421,13 @@ class PlayerServiceTest {
 
 
         //when
-        when(playerRepo.findById(player1.getId())).thenReturn(Optional.of(player1));
-        when(playerRepo.findById(player2.getId())).thenReturn(Optional.empty());
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+        when(playerRepo.findIdsByIdIn(List.of(player1.getId(), player2.getId()))).thenReturn(List.of(player1));
         String actual = playerService.updatePlayers(playersDTO);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.UPDATE_FAILURE_MESSAGE +  player2.getId());
-        verify(playerRepo, times(1)).saveAll(anyList());
+        verify(playerRepo, times(1)).updateEach(anyList());
     }
 
     @Test
@@ -266,13 +457,13 @@ class PlayerServiceTest {
         playerIds.add(player2.getId());
 
         //when
-        when(playerRepo.findById(player1.getId())).thenReturn(Optional.of(player1));
-        when(playerRepo.findById(player2.getId())).thenReturn(Optional.of(player2));
+        when(playerRepo.findIdsByIdIn(List.of(player1.getId(), player2.getId()))).thenReturn(List.of(player1, player2));
         String actual = playerService.deletePlayers(playerIds);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.DELETE_SUCCESSFUL_MESSAGE);
-        verify(playerRepo, times(1)).deleteAllById(anyList());
+        verify(playerRepo, times(1)).deleteByIdIn(List.of(player1.getId(), player2.getId()));
+        verify(playerRepo, never()).findAllById(anyIterable());
     }
 
     @Test
@@ -302,12 +493,192 @@ class PlayerServiceTest {
         playerIds.add(player2.getId());
 
         //when
-        when(playerRepo.findById(player1.getId())).thenReturn(Optional.of(player1));
-        when(playerRepo.findById(player2.getId())).thenReturn(Optional.empty());
+        when(playerRepo.findIdsByIdIn(List.of(player1.getId(), player2.getId()))).thenReturn(List.of(player1));
         String actual = playerService.deletePlayers(playerIds);
 
         //then
         assertThat(actual).isEqualTo(PlayerConstants.DELETE_FAILURE_MESSAGE +  player2.getId());
-        verify(playerRepo, times(1)).deleteAllById(anyList());
+        verify(playerRepo, times(1)).deleteByIdIn(List.of(player1.getId()));
+    }
+
+    @Test
+    void canDeletePlayersInBatches() {
+
+        //given
+        PlayerService batchingPlayerService = new PlayerService(playerRepo,
+                new PlayerResolver(playerRepo, Runnable::run, 1000), eventPublisher,
+                new PlayerUpdateBuffer(false, 0, 1, Clock.systemUTC()), new MetricsService(), 2);
+        List<String> playerIds = List.of("1", "2", "3", "2");
+        List<Player> players = playerIds.stream()
+                .distinct()
+                .map(playerId -> new Player(playerId, null, null, null))
+                .toList();
+
+        //when
+        when(playerRepo.findIdsByIdIn(List.of("1", "2", "3"))).thenReturn(players);
+        String actual = batchingPlayerService.deletePlayers(playerIds);
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.DELETE_SUCCESSFUL_MESSAGE);
+        verify(playerRepo, times(1)).deleteByIdIn(List.of("1", "2"));
+        verify(playerRepo, times(1)).deleteByIdIn(List.of("3"));
+    }
+
+    private PlayerService writeBehindPlayerService(int maxPending) {
+
+        return new PlayerService(playerRepo, new PlayerResolver(playerRepo, Runnable::run, 1000), eventPublisher,
+                new PlayerUpdateBuffer(true, 60_000, maxPending, Clock.systemUTC()), new MetricsService(), 1000);
+    }
+
+    private static PlayerDTO attributeUpdate(String id, String attribute, Object value) {
+
+        return new PlayerDTO(id, null, new HashMap<>(Map.of(attribute, value)), null);
+    }
+
+    @Test
+    void canBufferUpdatesAndFlushThemMergedPerPlayer() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(100);
+        Player player = new Player("1", "Player1", new HashMap<>(Map.of("strength", 50, "speed", 60)), false);
+        when(playerRepo.findIdsByIdIn(List.of("1"))).thenReturn(List.of(player));
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+
+        //when
+        String first = writeBehindService.updatePlayers(List.of(attributeUpdate("1", "strength", 70)));
+        String second = writeBehindService.updatePlayers(List.of(attributeUpdate("1", "speed", 80),
+                new PlayerDTO("1", null, null, true)));
+        verify(playerRepo, never()).updateEach(anyList());
+        writeBehindService.flushPendingUpdates();
+
+        //then
+        assertThat(first).isEqualTo(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
+        assertThat(second).isEqualTo(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
+        verify(playerRepo, times(1)).findIdsByIdIn(anyCollection());
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        Document set = pipelineSet(updatesCaptor.getValue().get(0).getSecond());
+        assertThat(set.get("attributes.strength")).isEqualTo(new Document("$literal", 70));
+        assertThat(set.get("attributes.speed")).isEqualTo(new Document("$literal", 80));
+        assertThat(set.get("isSearchingForMatch")).isEqualTo(new Document("$literal", true));
+    }
+
+    @Test
+    void canReadBufferedUpdatesBeforeTheyAreFlushed() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(100);
+        Player player = new Player("1", "Player1", new HashMap<>(Map.of("strength", 50, "speed", 60)), false);
+        when(playerRepo.findIdsByIdIn(List.of("1"))).thenReturn(List.of(player));
+        when(playerRepo.findAll()).thenReturn(List.of(player));
+        when(playerRepo.findByName("Player1")).thenReturn(Optional.of(player));
+        when(playerRepo.findByName("Renamed")).thenReturn(Optional.empty());
+        writeBehindService.updatePlayers(List.of(new PlayerDTO("1", "Renamed", new HashMap<>(Map.of("strength", 70)), null)));
+        when(playerRepo.findById("1")).thenReturn(Optional.of(player));
+
+        //when
+        List<PlayerBasicDTO> players = writeBehindService.getPlayers();
+        PlayerBasicDTO renamed = writeBehindService.getPlayer("Renamed");
+
+        //then
+        assertThat(players.get(0).getName()).isEqualTo("Renamed");
+        assertThat(players.get(0).getAttributes()).isEqualTo(Map.of("strength", 70, "speed", 60));
+        assertThat(renamed.getId()).isEqualTo("1");
+        assertThrows(PlayerNotFoundException.class, () -> writeBehindService.getPlayer("Player1"));
+        assertThat(player.getAttributes().get("strength")).isEqualTo(50);
+    }
+
+    @Test
+    void canFlushSynchronouslyWhenBufferIsFull() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(1);
+        Player player1 = new Player("1", "Player1", new HashMap<>(Map.of("strength", 50)), false);
+        Player player2 = new Player("2", "Player2", new HashMap<>(Map.of("strength", 50)), false);
+        when(playerRepo.findIdsByIdIn(List.of("1", "2"))).thenReturn(List.of(player1, player2));
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+
+        //when
+        String actual = writeBehindService.updatePlayers(List.of(attributeUpdate("1", "strength", 60),
+                attributeUpdate("2", "strength", 70)));
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.UPDATE_SUCCESS_MESSAGE);
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        assertThat(updatesCaptor.getValue().get(0).getFirst().getQueryObject().get("_id")).isEqualTo("1");
+    }
+
+    @Test
+    void canNotBufferUpdatesOfMissingPlayers() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(100);
+        when(playerRepo.findIdsByIdIn(List.of("1", "2"))).thenReturn(List.of(new Player("1", null, null, null)));
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+
+        //when
+        String actual = writeBehindService.updatePlayers(List.of(attributeUpdate("1", "strength", 60),
+                attributeUpdate("2", "strength", 70)));
+        writeBehindService.flushPendingUpdates();
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.UPDATE_FAILURE_MESSAGE + "2");
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        assertThat(updatesCaptor.getValue().size()).isEqualTo(1);
+    }
+
+    @Test
+    void canNotBufferRenameToTakenName() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(100);
+        when(playerRepo.findIdsByIdIn(List.of("1", "3", "4")))
+                .thenReturn(List.of(new Player("1", null, null, null), new Player("3", null, null, null),
+                        new Player("4", null, null, null)));
+        when(playerRepo.findByName("Player2")).thenReturn(Optional.of(new Player("2", "Player2", null, false)));
+        when(playerRepo.updateEach(anyList())).thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+
+        //when
+        String actual = writeBehindService.updatePlayers(List.of(new PlayerDTO("1", "Player2", null, null),
+                new PlayerDTO("3", "Player5", null, null), new PlayerDTO("4", "Player5", null, null)));
+        writeBehindService.flushPendingUpdates();
+
+        //then
+        assertThat(actual).isEqualTo(PlayerConstants.UPDATE_REJECTED_MESSAGE + "1, 4");
+        verify(playerRepo, times(1)).updateEach(updatesCaptor.capture());
+        assertThat(updatesCaptor.getValue().size()).isEqualTo(1);
+        assertThat(updatesCaptor.getValue().get(0).getFirst().getQueryObject().get("_id")).isEqualTo("3");
+    }
+
+    @Test
+    void canDropRejectedAndRestoreFailedUpdatesOnFlush() {
+
+        //given
+        PlayerService writeBehindService = writeBehindPlayerService(100);
+        when(playerRepo.findIdsByIdIn(List.of("1", "2")))
+                .thenReturn(List.of(new Player("1", null, null, null), new Player("2", null, null, null)));
+        when(playerRepo.updateEach(anyList()))
+                .thenReturn(new PlayerRepositoryCustom.UpdateEachResult(0, Set.of(0), Set.of(1),
+                        new IllegalStateException("write failed")))
+                .thenReturn(new PlayerRepositoryCustom.UpdateEachResult(1));
+        writeBehindService.updatePlayers(List.of(attributeUpdate("1", "strength", 60),
+                attributeUpdate("2", "strength", 70)));
+
+        //when
+        writeBehindService.flushPendingUpdates();
+        writeBehindService.flushPendingUpdates();
+
+        //then
+        verify(playerRepo, times(2)).updateEach(updatesCaptor.capture());
+        List<Pair<Query, UpdateDefinition>> retried = updatesCaptor.getAllValues().get(1);
+        assertThat(retried.size()).isEqualTo(1);
+        assertThat(retried.get(0).getFirst().getQueryObject().get("_id")).isEqualTo("2");
+        ArgumentCaptor<PlayersUpdatedEvent> eventCaptor = ArgumentCaptor.forClass(PlayersUpdatedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(eventCaptor.capture());
+        assertThat(eventCaptor.getValue().updates().get(0).getId()).isEqualTo("2");
+    }
+
+    private static Document pipelineSet(UpdateDefinition update) {
+
+        return ((AggregationUpdate) update).toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$set", Document.class);
     }
-}
\ No newline at end of file
+}
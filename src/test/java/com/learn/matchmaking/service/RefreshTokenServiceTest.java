@@ -0,0 +1,124 @@
+package com.learn.matchmaking.service;
+
+import com.learn.matchmaking.dto.TokenResponse;
+import com.learn.matchmaking.model.RefreshToken;
+import com.learn.matchmaking.repo.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-11-05T12:00:00Z");
+
+    @Mock private RefreshTokenRepository refreshTokenRepo;
+    @Mock private JWTService jwtService;
+    @Mock private MyUserDetailsService myUserDetailsService;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+
+        refreshTokenService = new RefreshTokenService(refreshTokenRepo, jwtService, myUserDetailsService,
+                Duration.ofDays(30), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void storesOnlyTheHashOfAnIssuedToken() {
+
+        //when
+        String token = refreshTokenService.issue("testAdmin");
+
+        //then
+        ArgumentCaptor<RefreshToken> stored = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepo).save(stored.capture());
+        assertThat(stored.getValue().getTokenHash()).isEqualTo(TokenHashes.sha256(token)).isNotEqualTo(token);
+        assertThat(stored.getValue().getUsername()).isEqualTo("testAdmin");
+        assertThat(stored.getValue().getExpiresAt()).isEqualTo(NOW.plus(Duration.ofDays(30)));
+    }
+
+    @Test
+    void rotatesTheTokenOnRefresh() {
+
+        //given
+        String tokenHash = TokenHashes.sha256("oldToken");
+        UserDetails user = User.withUsername("testAdmin").password("hash").authorities("USER").build();
+        when(refreshTokenRepo.findByTokenHash(tokenHash))
+                .thenReturn(Optional.of(new RefreshToken("1", tokenHash, "testAdmin", NOW.plusSeconds(60))));
+        when(refreshTokenRepo.deleteByTokenHash(tokenHash)).thenReturn(1L);
+        when(myUserDetailsService.loadUserByUsername("testAdmin")).thenReturn(user);
+        when(jwtService.generateToken(any(Authentication.class))).thenReturn("newAccessToken");
+
+        //when
+        Optional<TokenResponse> response = refreshTokenService.refresh("oldToken");
+
+        //then
+        assertThat(response).isPresent();
+        assertThat(response.get().getAccessToken()).isEqualTo("newAccessToken");
+        assertThat(response.get().getRefreshToken()).isNotBlank().isNotEqualTo("oldToken");
+        verify(refreshTokenRepo).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rejectsATokenThatWasAlreadyUsed() {
+
+        //given
+        String tokenHash = TokenHashes.sha256("oldToken");
+        when(refreshTokenRepo.findByTokenHash(tokenHash))
+                .thenReturn(Optional.of(new RefreshToken("1", tokenHash, "testAdmin", NOW.plusSeconds(60))));
+        when(refreshTokenRepo.deleteByTokenHash(tokenHash)).thenReturn(0L);
+
+        //when
+        Optional<TokenResponse> response = refreshTokenService.refresh("oldToken");
+
+        //then
+        assertThat(response).isEmpty();
+        verify(jwtService, never()).generateToken(any(Authentication.class));
+    }
+
+    @Test
+    void rejectsABlankTokenWithoutALookup() {
+
+        //when
+        Optional<TokenResponse> response = refreshTokenService.refresh(" ");
+
+        //then
+        assertThat(response).isEmpty();
+        verify(refreshTokenRepo, never()).findByTokenHash(any());
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+
+        //given
+        String tokenHash = TokenHashes.sha256("oldToken");
+        when(refreshTokenRepo.findByTokenHash(tokenHash))
+                .thenReturn(Optional.of(new RefreshToken("1", tokenHash, "testAdmin", NOW.minusSeconds(1))));
+
+        //when
+        Optional<TokenResponse> response = refreshTokenService.refresh("oldToken");
+
+        //then
+        assertThat(response).isEmpty();
+        verify(refreshTokenRepo, never()).deleteByTokenHash(tokenHash);
+    }
+}
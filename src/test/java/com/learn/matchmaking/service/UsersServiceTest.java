@@ -1,7 +1,9 @@
 package com.learn.matchmaking.service;
 
 import com.learn.matchmaking.constant.UserConstants;
+import com.learn.matchmaking.dto.TokenResponse;
 import com.learn.matchmaking.dto.UsersDTO;
+import com.learn.matchmaking.exception.PasswordWorkRejectedException;
 import com.learn.matchmaking.model.Users;
 import com.learn.matchmaking.repo.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,12 +17,19 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +38,10 @@ class UsersServiceTest {
     @Mock private AuthenticationManager authenticationManager;
     @Mock private UserRepository userRepository;
     @Mock private JWTService jwtService;
+    @Mock private MyUserDetailsService myUserDetailsService;
+    @Mock private RefreshTokenService refreshTokenService;
+    @Mock private PasswordEncoder passwordEncoder;
+    @Mock private PasswordWorkExecutor passwordWorkExecutor;
     @InjectMocks private UsersService usersService;
 
     private UsersDTO testAdmin;
@@ -37,6 +50,8 @@ class UsersServiceTest {
     void setUp() {
 
         testAdmin = createMockUser();
+        lenient().when(passwordWorkExecutor.call(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
     }
 
     private UsersDTO createMockUser() {
@@ -52,9 +67,12 @@ class UsersServiceTest {
     void canRegisterUser() {
 
         when(userRepository.findByUsername(testAdmin.getUsername())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(testAdmin.getPassword())).thenReturn("hashedpassword");
         String response = usersService.registerUser(testAdmin);
 
         assertThat(response).isEqualTo(UserConstants.USER_REGISTRATION_SUCCESSFUL_MESSAGE);
+        verify(userRepository).save(new Users(null, testAdmin.getUsername(), "hashedpassword", null, 0));
+        verify(myUserDetailsService).evict(testAdmin.getUsername());
     }
 
     @Test
@@ -79,7 +97,7 @@ class UsersServiceTest {
         when(authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(testAdmin.getUsername(), testAdmin.getPassword())
         )).thenReturn(authentication);
-        when(jwtService.generateToken(testAdmin.getUsername())).thenReturn("dummytesttoken");
+        when(jwtService.generateToken(authentication)).thenReturn("dummytesttoken");
         String response = usersService.verifyUser(testAdmin);
 
         assertThat(response).isEqualTo("dummytesttoken");
@@ -99,4 +117,42 @@ class UsersServiceTest {
 
         assertThrows(UsernameNotFoundException.class ,() -> usersService.verifyUser(testAdmin));
     }
-}
\ No newline at end of file
+
+    @Test
+    void canIssueTokens() {
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                testAdmin.getUsername(), testAdmin.getPassword(),
+                Collections.singleton(new SimpleGrantedAuthority("USER"))
+        );
+
+        when(authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(testAdmin.getUsername(), testAdmin.getPassword())
+        )).thenReturn(authentication);
+        when(jwtService.generateToken(authentication)).thenReturn("dummytesttoken");
+        when(refreshTokenService.issue(testAdmin.getUsername())).thenReturn("dummyrefreshtoken");
+        TokenResponse response = usersService.issueTokens(testAdmin);
+
+        assertThat(response).isEqualTo(new TokenResponse("dummytesttoken", "dummyrefreshtoken", null));
+    }
+
+    @Test
+    void canNotRefreshTokens() {
+
+        when(refreshTokenService.refresh("usedtoken")).thenReturn(Optional.empty());
+        TokenResponse response = usersService.refreshTokens("usedtoken");
+
+        assertThat(response.getMessage()).isEqualTo(UserConstants.REFRESH_TOKEN_INVALID_MESSAGE);
+        assertThat(response.getAccessToken()).isNull();
+    }
+
+    @Test
+    void canNotVerifyUserWhenPasswordWorkIsSaturated() {
+
+        doThrow(new PasswordWorkRejectedException(UserConstants.AUTHENTICATION_BUSY_MESSAGE, 1))
+                .when(passwordWorkExecutor).call(any());
+
+        assertThrows(PasswordWorkRejectedException.class, () -> usersService.verifyUser(testAdmin));
+        verify(authenticationManager, never()).authenticate(any());
+    }
+}